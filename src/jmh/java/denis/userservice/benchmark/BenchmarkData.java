@@ -0,0 +1,51 @@
+package denis.userservice.benchmark;
+
+import denis.userservice.dto.response.PaymentCardResponseDto;
+import denis.userservice.dto.response.UserResponseDto;
+import denis.userservice.entity.PaymentCard;
+import denis.userservice.entity.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static UserResponseDto sampleUser(int cardCount) {
+        UUID userId = UUID.randomUUID();
+        List<PaymentCardResponseDto> cards = new ArrayList<>(cardCount);
+        for (int i = 0; i < cardCount; i++) {
+            cards.add(new PaymentCardResponseDto(UUID.randomUUID(), userId, "411111111111111" + i,
+                    "JOHN DOE", LocalDate.of(2030, 1, 1).plusMonths(i), true, 1));
+        }
+        return new UserResponseDto(userId, "John", "Doe", LocalDate.of(1990, 1, 1), "john.doe@example.com",
+                true, 1, cards);
+    }
+
+    static User sampleUserEntity(int cardCount) {
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .name("John")
+                .surname("Doe")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .email("john.doe@example.com")
+                .active(true)
+                .paymentCards(new ArrayList<>(cardCount))
+                .build();
+        for (int i = 0; i < cardCount; i++) {
+            user.getPaymentCards().add(PaymentCard.builder()
+                    .id(UUID.randomUUID())
+                    .user(user)
+                    .number("411111111111111" + i)
+                    .holder("JOHN DOE")
+                    .expirationDate(LocalDate.of(2030, 1, 1).plusMonths(i))
+                    .active(true)
+                    .build());
+        }
+        return user;
+    }
+}
@@ -0,0 +1,54 @@
+package denis.userservice.benchmark;
+
+import denis.userservice.dto.response.UserResponseDto;
+import denis.userservice.entity.User;
+import denis.userservice.mapper.PaymentCardMapperImpl;
+import denis.userservice.mapper.UserMapper;
+import denis.userservice.mapper.UserMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserMapperBenchmark {
+
+    @Param({"0", "1", "3", "5"})
+    public int cards;
+
+    private UserMapper userMapper;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userMapper = new UserMapperImpl();
+        ReflectionTestUtils.setField(userMapper, "paymentCardMapper", new PaymentCardMapperImpl());
+        user = BenchmarkData.sampleUserEntity(cards);
+    }
+
+    @Benchmark
+    public UserResponseDto toResponseDto() {
+        return userMapper.toResponseDto(user);
+    }
+
+    @Benchmark
+    public UserResponseDto toCoreDto() {
+        return userMapper.toCoreDto(user);
+    }
+}
@@ -0,0 +1,112 @@
+package denis.userservice.loadtest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+final class DatasetSeeder {
+
+    private static final int CHUNK_ROWS = 50_000;
+    private static final String[] NAMES = {"Anna", "Boris", "Clara", "Denis", "Elena", "Fedor", "Galina", "Ivan"};
+    private static final String[] SURNAMES = {"Ivanov", "Petrova", "Sidorov", "Smirnova", "Kuznetsov", "Popova"};
+
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+
+    DatasetSeeder(String jdbcUrl, String username, String password) {
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+    }
+
+    Dataset seed(int users, int cardsPerUser, long seed) throws SQLException, IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        UUID[] userIds = new UUID[users];
+        UUID[] cardIds = new UUID[(int) Math.min((long) users * cardsPerUser, Dataset.MAX_SAMPLED_CARDS)];
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, username, password)) {
+            CopyManager copy = connection.unwrap(PGConnection.class).getCopyAPI();
+            StringBuilder rows = new StringBuilder();
+            for (int i = 0; i < users; i++) {
+                userIds[i] = new UUID(random.nextLong(), random.nextLong());
+                LocalDateTime createdAt = now.minusSeconds(random.nextInt(365 * 24 * 3600));
+                rows.append(userIds[i]).append(',')
+                        .append(NAMES[i % NAMES.length]).append(i).append(',')
+                        .append(SURNAMES[i % SURNAMES.length]).append(',')
+                        .append(LocalDate.of(1960, 1, 1).plusDays(random.nextInt(15_000))).append(',')
+                        .append(Dataset.email(i)).append(',')
+                        .append(random.nextInt(10) != 0).append(',')
+                        .append(createdAt).append(',')
+                        .append(createdAt.plusSeconds(random.nextInt(30 * 24 * 3600))).append('\n');
+                if ((i + 1) % CHUNK_ROWS == 0) {
+                    copyIn(copy, "users", rows);
+                }
+            }
+            copyIn(copy, "users", rows);
+
+            long card = 0;
+            for (int i = 0; i < users; i++) {
+                for (int c = 0; c < cardsPerUser; c++, card++) {
+                    UUID cardId = new UUID(random.nextLong(), random.nextLong());
+                    long slot = card < cardIds.length ? card : random.nextLong(card + 1);
+                    if (slot < cardIds.length) {
+                        cardIds[(int) slot] = cardId;
+                    }
+                    LocalDateTime createdAt = now.minusSeconds(random.nextInt(365 * 24 * 3600));
+                    rows.append(cardId).append(',')
+                            .append(userIds[i]).append(',')
+                            .append(String.format("4%015d", card)).append(',')
+                            .append(NAMES[i % NAMES.length].toUpperCase()).append(' ')
+                            .append(SURNAMES[i % SURNAMES.length].toUpperCase()).append(',')
+                            .append(LocalDate.now().plusMonths(1 + random.nextInt(60))).append(',')
+                            .append(random.nextInt(10) != 0).append(',')
+                            .append(createdAt).append(',')
+                            .append(createdAt).append('\n');
+                    if ((card + 1) % CHUNK_ROWS == 0) {
+                        copyIn(copy, "payment_cards", rows);
+                    }
+                }
+            }
+            copyIn(copy, "payment_cards", rows);
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE users");
+                statement.execute("ANALYZE payment_cards");
+            }
+        }
+        return new Dataset(userIds, cardIds);
+    }
+
+    private static void copyIn(CopyManager copy, String table, StringBuilder rows) throws SQLException, IOException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        String columns = "users".equals(table)
+                ? "id, name, surname, birth_date, email, active, created_at, updated_at"
+                : "id, user_id, number, holder, expiration_date, active, created_at, updated_at";
+        copy.copyIn("COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv)",
+                new StringReader(rows.toString()));
+        rows.setLength(0);
+    }
+
+    record Dataset(UUID[] userIds, UUID[] cardIds) {
+
+        static final int MAX_SAMPLED_CARDS = 200_000;
+
+        static String email(int userIndex) {
+            return "user" + userIndex + "@load.test";
+        }
+    }
+}
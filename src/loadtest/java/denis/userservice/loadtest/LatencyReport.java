@@ -0,0 +1,119 @@
+package denis.userservice.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+final class LatencyReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private volatile long startedAt = System.nanoTime();
+    private volatile long finishedAt;
+
+    LatencyReport() {
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    void record(Operation operation, long latencyNanos, boolean success) {
+        histograms.get(operation).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos),
+                HIGHEST_TRACKABLE_MICROS));
+        if (!success) {
+            errors.get(operation).increment();
+        }
+    }
+
+    void reset() {
+        histograms.values().forEach(Histogram::reset);
+        errors.values().forEach(LongAdder::reset);
+        startedAt = System.nanoTime();
+    }
+
+    void finish() {
+        finishedAt = System.nanoTime();
+    }
+
+    void print(PrintStream out) {
+        double seconds = elapsedSeconds();
+        out.printf(Locale.ROOT, "%-36s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long totalErrors = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = histograms.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            total.add(histogram);
+            totalErrors += errors.get(operation).sum();
+            printRow(out, operation.label(), histogram, errors.get(operation).sum(), seconds);
+        }
+        printRow(out, "TOTAL", total, totalErrors, seconds);
+    }
+
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        double seconds = elapsedSeconds();
+        StringBuilder json = new StringBuilder("{\"durationSeconds\":").append(seconds).append(",\"endpoints\":{");
+        boolean first = true;
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = histograms.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append('"').append(operation.label()).append("\":{")
+                    .append("\"requests\":").append(histogram.getTotalCount())
+                    .append(",\"errors\":").append(errors.get(operation).sum())
+                    .append(",\"throughput\":").append(histogram.getTotalCount() / seconds)
+                    .append(",\"p50Ms\":").append(millis(histogram, 50))
+                    .append(",\"p90Ms\":").append(millis(histogram, 90))
+                    .append(",\"p99Ms\":").append(millis(histogram, 99))
+                    .append(",\"p999Ms\":").append(millis(histogram, 99.9))
+                    .append(",\"maxMs\":").append(histogram.getMaxValue() / 1000.0)
+                    .append('}');
+            try (PrintStream hgrm = new PrintStream(
+                    Files.newOutputStream(directory.resolve(operation.name().toLowerCase(Locale.ROOT) + ".hgrm")))) {
+                histogram.outputPercentileDistribution(hgrm, 1000.0);
+            }
+        }
+        json.append("}}");
+        try (Writer writer = Files.newBufferedWriter(directory.resolve("loadtest-result.json"))) {
+            writer.write(json.toString());
+        }
+    }
+
+    private double elapsedSeconds() {
+        long end = finishedAt > 0 ? finishedAt : System.nanoTime();
+        return (end - startedAt) / 1e9;
+    }
+
+    private static void printRow(PrintStream out, String label, Histogram histogram, long errors, double seconds) {
+        out.printf(Locale.ROOT, "%-36s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                label, histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
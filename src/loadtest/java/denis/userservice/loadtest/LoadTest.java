@@ -0,0 +1,167 @@
+package denis.userservice.loadtest;
+
+import denis.userservice.UserServiceApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+public final class LoadTest {
+
+    private static final String DEFAULT_MIX = "GET_USER=30,GET_USER_CARDS=20,GET_CARD=15,LIST_USERS=10,"
+            + "SEARCH_USERS=5,BATCH_GET_USERS=5,UPDATE_USER=10,CREATE_CARD=5";
+
+    private final int users = Integer.getInteger("loadtest.users", 1_000_000);
+    private final int cardsPerUser = Integer.getInteger("loadtest.cards-per-user", 3);
+    private final long seed = Long.getLong("loadtest.seed", 42L);
+    private final Duration warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT30S"));
+    private final Duration duration = Duration.parse(System.getProperty("loadtest.duration", "PT2M"));
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 64);
+    private final int rate = Integer.getInteger("loadtest.rate", 0);
+    private final String profiles = System.getProperty("loadtest.profiles", "");
+    private final Path resultDirectory = Path.of(System.getProperty("loadtest.result", "target/loadtest"));
+    private final Operation[] schedule = schedule(System.getProperty("loadtest.mix", DEFAULT_MIX));
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest().run();
+    }
+
+    private void run() throws Exception {
+        if (cardsPerUser > 5) {
+            throw new IllegalArgumentException("A user can hold at most 5 cards");
+        }
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16.1")
+                .withCommand("postgres", "-c", "max_connections=300", "-c", "shared_buffers=512MB");
+             GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7.2-alpine"))
+                     .withExposedPorts(6379)) {
+            postgres.start();
+            redis.start();
+
+            try (ConfigurableApplicationContext context = startApplication(postgres, redis)) {
+                URI base = URI.create("http://localhost:"
+                        + context.getEnvironment().getProperty("local.server.port") + "/");
+
+                long started = System.nanoTime();
+                DatasetSeeder.Dataset dataset = new DatasetSeeder(postgres.getJdbcUrl(), postgres.getUsername(),
+                        postgres.getPassword()).seed(users, cardsPerUser, seed);
+                System.out.printf("Seeded %d users and %d cards in %d s%n", users, (long) users * cardsPerUser,
+                        Duration.ofNanos(System.nanoTime() - started).toSeconds());
+
+                LatencyReport report = drive(base, dataset);
+                System.out.printf("%s, concurrency %d, %s%n", rate > 0 ? "Open loop at " + rate + " req/s"
+                        : "Closed loop", concurrency, profiles.isBlank() ? "default profile" : profiles);
+                report.print(System.out);
+                report.write(resultDirectory);
+                System.out.println("Results written to " + resultDirectory.toAbsolutePath());
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext startApplication(PostgreSQLContainer<?> postgres,
+                                                            GenericContainer<?> redis) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + postgres.getJdbcUrl(),
+                "--spring.datasource.username=" + postgres.getUsername(),
+                "--spring.datasource.password=" + postgres.getPassword(),
+                "--spring.data.redis.host=" + redis.getHost(),
+                "--spring.data.redis.port=" + redis.getMappedPort(6379),
+                "--spring.cache.type=redis",
+                "--cache.warmup.enabled=false",
+                "--logging.level.root=WARN"));
+        if (!profiles.isBlank()) {
+            args.add("--spring.profiles.active=" + profiles);
+        }
+        return SpringApplication.run(UserServiceApplication.class, args.toArray(String[]::new));
+    }
+
+    private LatencyReport drive(URI base, DatasetSeeder.Dataset dataset) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        LatencyReport report = new LatencyReport();
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int worker = 0; worker < concurrency; worker++) {
+                SplittableRandom random = new SplittableRandom(seed + worker);
+                long intervalNanos = rate > 0 ? 1_000_000_000L * concurrency / rate : 0;
+                long offset = intervalNanos * worker / concurrency;
+                workers.execute(() -> {
+                    long intended = start + offset;
+                    while (true) {
+                        long now = System.nanoTime();
+                        if (now >= end) {
+                            return;
+                        }
+                        if (intervalNanos > 0) {
+                            if (intended > now) {
+                                LockSupport.parkNanos(intended - now);
+                            }
+                        } else {
+                            intended = now;
+                        }
+                        execute(client, base, dataset, random, report, intended);
+                        intended += intervalNanos;
+                    }
+                });
+            }
+            Thread.sleep(warmup);
+            report.reset();
+        }
+        report.finish();
+        return report;
+    }
+
+    private void execute(HttpClient client, URI base, DatasetSeeder.Dataset dataset, SplittableRandom random,
+                         LatencyReport report, long intendedStart) {
+        Operation operation = schedule[random.nextInt(schedule.length)];
+        boolean success;
+        try {
+            HttpResponse<String> response = client.send(operation.request(base, dataset, random),
+                    HttpResponse.BodyHandlers.ofString());
+            success = operation.expected(response.statusCode(), response.body());
+        } catch (Exception ex) {
+            success = false;
+        }
+        report.record(operation, System.nanoTime() - intendedStart, success);
+    }
+
+    private static Operation[] schedule(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            weights.put(Operation.valueOf(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        List<Operation> schedule = new ArrayList<>();
+        weights.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                schedule.add(operation);
+            }
+        });
+        if (schedule.isEmpty()) {
+            throw new IllegalArgumentException("Empty load-test mix: " + mix);
+        }
+        return schedule.toArray(Operation[]::new);
+    }
+}
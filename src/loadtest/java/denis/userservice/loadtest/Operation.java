@@ -0,0 +1,113 @@
+package denis.userservice.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+enum Operation {
+
+    GET_USER("GET /api/users/{id}") {
+        @Override
+        HttpRequest request(URI base, DatasetSeeder.Dataset dataset, SplittableRandom random) {
+            return get(base, "/api/users/" + randomUser(dataset, random));
+        }
+    },
+    GET_USER_CARDS("GET /api/cards/user-cards/{userId}") {
+        @Override
+        HttpRequest request(URI base, DatasetSeeder.Dataset dataset, SplittableRandom random) {
+            return get(base, "/api/cards/user-cards/" + randomUser(dataset, random));
+        }
+    },
+    GET_CARD("GET /api/cards/{id}") {
+        @Override
+        HttpRequest request(URI base, DatasetSeeder.Dataset dataset, SplittableRandom random) {
+            return get(base, "/api/cards/" + dataset.cardIds()[random.nextInt(dataset.cardIds().length)]);
+        }
+    },
+    LIST_USERS("GET /api/users?total=approximate") {
+        @Override
+        HttpRequest request(URI base, DatasetSeeder.Dataset dataset, SplittableRandom random) {
+            return get(base, "/api/users?total=approximate&size=20&page=" + random.nextInt(50));
+        }
+    },
+    SEARCH_USERS("GET /api/users?name=") {
+        @Override
+        HttpRequest request(URI base, DatasetSeeder.Dataset dataset, SplittableRandom random) {
+            return get(base, "/api/users?size=20&name=" + random.nextInt(dataset.userIds().length));
+        }
+    },
+    BATCH_GET_USERS("POST /api/users/batch-get") {
+        @Override
+        HttpRequest request(URI base, DatasetSeeder.Dataset dataset, SplittableRandom random) {
+            StringJoiner ids = new StringJoiner("\",\"", "{\"ids\":[\"", "\"]}");
+            for (int i = 0; i < 50; i++) {
+                ids.add(randomUser(dataset, random).toString());
+            }
+            return post(base, "/api/users/batch-get", ids.toString());
+        }
+    },
+    UPDATE_USER("PUT /api/users/{id}") {
+        @Override
+        HttpRequest request(URI base, DatasetSeeder.Dataset dataset, SplittableRandom random) {
+            int index = random.nextInt(dataset.userIds().length);
+            String body = "{\"name\":\"Updated" + random.nextInt(1000) + "\",\"surname\":\"Loadtest\","
+                    + "\"birthDate\":\"1990-01-01\",\"email\":\"" + DatasetSeeder.Dataset.email(index) + "\"}";
+            return HttpRequest.newBuilder(base.resolve("/api/users/" + dataset.userIds()[index]))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+    },
+    CREATE_CARD("POST /api/cards") {
+        @Override
+        HttpRequest request(URI base, DatasetSeeder.Dataset dataset, SplittableRandom random) {
+            String body = "{\"userId\":\"" + randomUser(dataset, random) + "\","
+                    + "\"number\":\"5" + String.format("%015d", random.nextLong(1_000_000_000_000_000L)) + "\","
+                    + "\"holder\":\"LOAD TEST\",\"expirationDate\":\"" + LocalDate.now().plusYears(3) + "\"}";
+            return post(base, "/api/cards", body);
+        }
+
+        // Seeded users fill up their card lists over a long run; the service rejects further
+        // cards with this message, every other 400 is still a failed request.
+        @Override
+        boolean expected(int status, String body) {
+            return super.expected(status, body) || status == 400 && CARD_LIST_FULL.equals(body);
+        }
+    };
+
+    private static final String CARD_LIST_FULL = "Card list is full";
+
+    private final String label;
+
+    Operation(String label) {
+        this.label = label;
+    }
+
+    String label() {
+        return label;
+    }
+
+    abstract HttpRequest request(URI base, DatasetSeeder.Dataset dataset, SplittableRandom random);
+
+    boolean expected(int status, String body) {
+        return status >= 200 && status < 300;
+    }
+
+    private static UUID randomUser(DatasetSeeder.Dataset dataset, SplittableRandom random) {
+        return dataset.userIds()[random.nextInt(dataset.userIds().length)];
+    }
+
+    private static HttpRequest get(URI base, String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).GET().build();
+    }
+
+    private static HttpRequest post(URI base, String path, String body) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+package denis.userservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Component
+public class BatchCacheOperations {
+
+    private static final String KEY_SEPARATOR = "::";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisSerializer<Object> cacheValueSerializer;
+    private final TwoLevelCacheManager cacheManager;
+    private final RedisCacheWriter.TtlFunction cacheTtlFunction;
+    private final RedisCircuitBreaker circuitBreaker;
+
+    public BatchCacheOperations(StringRedisTemplate redisTemplate,
+                                RedisSerializer<Object> cacheValueSerializer,
+                                TwoLevelCacheManager cacheManager,
+                                RedisCacheWriter.TtlFunction cacheTtlFunction,
+                                RedisCircuitBreaker circuitBreaker) {
+        this.redisTemplate = redisTemplate;
+        this.cacheValueSerializer = cacheValueSerializer;
+        this.cacheManager = cacheManager;
+        this.cacheTtlFunction = cacheTtlFunction;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public <K, T> Map<K, T> getAll(String cacheName, Collection<K> keys, Class<T> type) {
+        TwoLevelCache cache = cacheManager.getTwoLevelCache(cacheName);
+        Map<K, T> result = new HashMap<>();
+        List<K> remoteKeys = new ArrayList<>();
+        for (K key : keys) {
+            Cache.ValueWrapper local = cache.getLocal(TwoLevelCache.localKey(key));
+            if (local != null && type.isInstance(local.get())) {
+                result.put(key, type.cast(local.get()));
+            } else {
+                remoteKeys.add(key);
+            }
+        }
+        if (remoteKeys.isEmpty()) {
+            return result;
+        }
+
+        byte[][] redisKeys = remoteKeys.stream()
+                .map(key -> redisKey(cacheName, key))
+                .toArray(byte[][]::new);
+        List<byte[]> values = circuitBreaker.call(() -> redisTemplate.execute(
+                (RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(redisKeys)), null);
+        if (values == null) {
+            return result;
+        }
+        List<K> unreadable = new ArrayList<>();
+        for (int i = 0; i < remoteKeys.size(); i++) {
+            byte[] bytes = values.get(i);
+            if (bytes == null) {
+                continue;
+            }
+            K key = remoteKeys.get(i);
+            Object value;
+            try {
+                value = cacheValueSerializer.deserialize(bytes);
+            } catch (SerializationException ex) {
+                log.warn("Dropping unreadable cache entry {}::{}", cacheName, key, ex);
+                unreadable.add(key);
+                continue;
+            }
+            if (type.isInstance(value)) {
+                result.put(key, type.cast(value));
+                cache.putLocal(TwoLevelCache.localKey(key), value);
+            }
+        }
+        evictAll(cacheName, unreadable);
+        return result;
+    }
+
+    public int putAllIfAbsent(String cacheName, Map<?, ?> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        TwoLevelCache cache = cacheManager.getTwoLevelCache(cacheName);
+        List<Map.Entry<?, ?>> ordered = new ArrayList<Map.Entry<?, ?>>(entries.entrySet());
+        List<Object> results = circuitBreaker.call(
+                () -> pipelineSet(cacheName, ordered, RedisStringCommands.SetOption.ifAbsent()), List.of());
+        if (results.isEmpty()) {
+            return 0;
+        }
+        int written = 0;
+        for (int i = 0; i < ordered.size(); i++) {
+            if (Boolean.TRUE.equals(results.get(i))) {
+                Map.Entry<?, ?> entry = ordered.get(i);
+                cache.putLocal(TwoLevelCache.localKey(entry.getKey()), entry.getValue());
+                written++;
+            }
+        }
+        return written;
+    }
+
+    public void evictAll(String cacheName, Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        TwoLevelCache cache = cacheManager.getTwoLevelCache(cacheName);
+        CacheInvalidationPublisher publisher = cache.getInvalidationPublisher();
+        byte[] topic = publisher.getTopic().getBytes(StandardCharsets.UTF_8);
+        boolean evicted = circuitBreaker.run(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.keyCommands().del(keys.stream()
+                    .map(key -> redisKey(cacheName, key))
+                    .toArray(byte[][]::new));
+            keys.forEach(key -> connection.publish(topic, publisher
+                    .evictMessage(cacheName, TwoLevelCache.localKey(key))
+                    .getBytes(StandardCharsets.UTF_8)));
+            return null;
+        }));
+        cache.evictAllLocal(keys, evicted);
+    }
+
+    private List<Object> pipelineSet(String cacheName, List<Map.Entry<?, ?>> entries,
+                                     RedisStringCommands.SetOption option) {
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            entries.forEach(entry -> connection.stringCommands().set(
+                    redisKey(cacheName, entry.getKey()),
+                    cacheValueSerializer.serialize(entry.getValue()),
+                    Expiration.from(cacheTtlFunction.getTimeToLive(entry.getKey(), entry.getValue())),
+                    option));
+            return null;
+        });
+    }
+
+    private static byte[] redisKey(String cacheName, Object key) {
+        return (cacheName + KEY_SEPARATOR + key).getBytes(StandardCharsets.UTF_8);
+    }
+}
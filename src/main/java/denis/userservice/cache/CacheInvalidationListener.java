@@ -0,0 +1,34 @@
+package denis.userservice.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+
+@Slf4j
+@RequiredArgsConstructor
+public class CacheInvalidationListener implements MessageListener {
+
+    private final TwoLevelCacheManager cacheManager;
+    private final String instanceId;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8)
+                .split("\\" + CacheInvalidationPublisher.SEPARATOR, 3);
+        if (parts.length != 3) {
+            log.warn("Ignoring malformed cache invalidation message");
+            return;
+        }
+        if (instanceId.equals(parts[0])) {
+            return;
+        }
+        if (CacheInvalidationPublisher.CLEAR_ALL.equals(parts[2])) {
+            cacheManager.clearLocal(parts[1]);
+        } else {
+            cacheManager.evictLocal(parts[1], parts[2]);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package denis.userservice.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@Getter
+@RequiredArgsConstructor
+public class CacheInvalidationPublisher {
+
+    static final String SEPARATOR = "|";
+    static final String CLEAR_ALL = "*";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String topic;
+    private final String instanceId;
+
+    public void publishEvict(String cacheName, String key) {
+        publish(cacheName, key);
+    }
+
+    public void publishClear(String cacheName) {
+        publish(cacheName, CLEAR_ALL);
+    }
+
+    String evictMessage(String cacheName, String key) {
+        return instanceId + SEPARATOR + cacheName + SEPARATOR + key;
+    }
+
+    private void publish(String cacheName, String key) {
+        redisTemplate.convertAndSend(topic, evictMessage(cacheName, key));
+    }
+}
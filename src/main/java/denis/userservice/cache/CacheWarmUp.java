@@ -0,0 +1,197 @@
+package denis.userservice.cache;
+
+import denis.userservice.dto.response.PaymentCardResponseDto;
+import denis.userservice.dto.response.UserResponseDto;
+import denis.userservice.entity.PaymentCard;
+import denis.userservice.entity.User;
+import denis.userservice.mapper.PaymentCardMapper;
+import denis.userservice.mapper.UserMapper;
+import denis.userservice.repository.PaymentCardRepository;
+import denis.userservice.repository.UserRepository;
+import io.lettuce.core.event.connection.ConnectionActivatedEvent;
+import io.lettuce.core.event.connection.ConnectionDeactivatedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Component
+public class CacheWarmUp {
+
+    public enum State { PENDING, RUNNING, COMPLETED, FAILED, DISABLED }
+
+    private final UserRepository userRepository;
+    private final PaymentCardRepository cardRepository;
+    private final UserMapper userMapper;
+    private final PaymentCardMapper cardMapper;
+    private final BatchCacheOperations batchCacheOperations;
+    private final RedisConnectionFactory connectionFactory;
+
+    private final boolean enabled;
+    private final int size;
+    private final int batchSize;
+    private final int concurrency;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean connectionLost = new AtomicBoolean();
+    private volatile State state = State.PENDING;
+    private volatile boolean initialWarmUpDone;
+    private volatile int lastWarmedUsers;
+    private volatile Instant lastFinishedAt;
+    private Disposable reconnectSubscription;
+
+    public CacheWarmUp(UserRepository userRepository,
+                       PaymentCardRepository cardRepository,
+                       UserMapper userMapper,
+                       PaymentCardMapper cardMapper,
+                       BatchCacheOperations batchCacheOperations,
+                       RedisConnectionFactory connectionFactory,
+                       @Value("${cache.warmup.enabled:true}") boolean enabled,
+                       @Value("${cache.warmup.size:10000}") int size,
+                       @Value("${cache.warmup.batch-size:500}") int batchSize,
+                       @Value("${cache.warmup.concurrency:4}") int concurrency) {
+        this.userRepository = userRepository;
+        this.cardRepository = cardRepository;
+        this.userMapper = userMapper;
+        this.cardMapper = cardMapper;
+        this.batchCacheOperations = batchCacheOperations;
+        this.connectionFactory = connectionFactory;
+        this.enabled = enabled;
+        this.size = size;
+        this.batchSize = Math.max(1, batchSize);
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled || size <= 0) {
+            state = State.DISABLED;
+            initialWarmUpDone = true;
+            return;
+        }
+        subscribeToReconnects();
+        startAsync("startup");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reconnectSubscription != null) {
+            reconnectSubscription.dispose();
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isInitialWarmUpDone() {
+        return initialWarmUpDone;
+    }
+
+    public int getLastWarmedUsers() {
+        return lastWarmedUsers;
+    }
+
+    public Instant getLastFinishedAt() {
+        return lastFinishedAt;
+    }
+
+    boolean startAsync(String reason) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        state = State.RUNNING;
+        Thread.ofPlatform().name("cache-warmup").daemon().start(() -> {
+            try {
+                run(reason);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    void run(String reason) {
+        long started = System.nanoTime();
+        try {
+            lastWarmedUsers = warmUp();
+            state = State.COMPLETED;
+            log.info("Cache warm-up after {} loaded {} users in {} ms", reason, lastWarmedUsers,
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException ex) {
+            state = State.FAILED;
+            log.warn("Cache warm-up after {} failed", reason, ex);
+        } finally {
+            lastFinishedAt = Instant.now();
+            initialWarmUpDone = true;
+        }
+    }
+
+    int warmUp() {
+        List<UUID> ids = userRepository.findRecentlyUpdatedIds(size);
+        AtomicInteger warmed = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(concurrency,
+                Thread.ofPlatform().name("cache-warmup-", 0).daemon().factory())) {
+            List<CompletableFuture<Void>> batches = new ArrayList<>();
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                List<UUID> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+                batches.add(CompletableFuture.runAsync(() -> warmed.addAndGet(warmBatch(batch)), executor));
+            }
+            CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).join();
+        }
+        return warmed.get();
+    }
+
+    private int warmBatch(List<UUID> userIds) {
+        Map<UUID, UserResponseDto> users = new HashMap<>();
+        Map<UUID, List<PaymentCardResponseDto>> userCards = new HashMap<>();
+        for (User user : userRepository.findAllById(userIds)) {
+            users.put(user.getId(), userMapper.toCoreDto(user));
+            userCards.put(user.getId(), new ArrayList<>());
+        }
+        if (users.isEmpty()) {
+            return 0;
+        }
+        Map<UUID, PaymentCardResponseDto> cards = new HashMap<>();
+        for (PaymentCard card : cardRepository.findAllByUserIdIn(users.keySet())) {
+            PaymentCardResponseDto dto = cardMapper.toResponseDto(card);
+            cards.put(dto.id(), dto);
+            userCards.get(dto.userId()).add(dto);
+        }
+        batchCacheOperations.putAllIfAbsent("users", users);
+        batchCacheOperations.putAllIfAbsent("userCards", userCards);
+        batchCacheOperations.putAllIfAbsent("cards", cards);
+        return users.size();
+    }
+
+    private void subscribeToReconnects() {
+        if (!(connectionFactory instanceof LettuceConnectionFactory lettuce) || lettuce.getClientResources() == null) {
+            return;
+        }
+        reconnectSubscription = lettuce.getClientResources().eventBus().get().subscribe(event -> {
+            if (event instanceof ConnectionDeactivatedEvent) {
+                connectionLost.set(true);
+            } else if (event instanceof ConnectionActivatedEvent && connectionLost.compareAndSet(true, false)) {
+                startAsync("Redis reconnect");
+            }
+        });
+    }
+}
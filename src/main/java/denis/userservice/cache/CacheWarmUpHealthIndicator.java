@@ -0,0 +1,24 @@
+package denis.userservice.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class CacheWarmUpHealthIndicator implements HealthIndicator {
+
+    private final CacheWarmUp cacheWarmUp;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = cacheWarmUp.isInitialWarmUpDone() ? Health.up() : Health.outOfService();
+        builder.withDetail("state", cacheWarmUp.getState())
+                .withDetail("warmedUsers", cacheWarmUp.getLastWarmedUsers());
+        if (cacheWarmUp.getLastFinishedAt() != null) {
+            builder.withDetail("finishedAt", cacheWarmUp.getLastFinishedAt().toString());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,273 @@
+package denis.userservice.cache;
+
+import denis.userservice.dto.response.PaymentCardResponseDto;
+import denis.userservice.dto.response.UserResponseDto;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+public class CompactBinaryRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xFE;
+    static final byte SCHEMA_VERSION = 2;
+
+    private static final byte TYPE_FALLBACK = 0;
+    private static final byte TYPE_USER = 1;
+    private static final byte TYPE_CARD = 2;
+    private static final byte TYPE_CARD_LIST = 3;
+
+    private static final int HEADER_SIZE = 3;
+
+    private final RedisSerializer<Object> fallback;
+    private final boolean compactWrites;
+
+    public CompactBinaryRedisSerializer(RedisSerializer<Object> fallback, boolean compactWrites) {
+        this.fallback = fallback;
+        this.compactWrites = compactWrites;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte type = typeOf(value);
+        if (!compactWrites || type == TYPE_FALLBACK) {
+            return fallback.serialize(value);
+        }
+        Output out = new Output();
+        out.write(MAGIC);
+        out.write(SCHEMA_VERSION);
+        out.write(type);
+        switch (type) {
+            case TYPE_USER -> writeUser(out, (UserResponseDto) value);
+            case TYPE_CARD -> writeCard(out, (PaymentCardResponseDto) value);
+            default -> writeCards(out, (List<?>) value);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0 || bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_SIZE || bytes[1] != SCHEMA_VERSION) {
+            return null;
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+        try {
+            return switch (bytes[2]) {
+                case TYPE_USER -> readUser(in);
+                case TYPE_CARD -> readCard(in);
+                case TYPE_CARD_LIST -> readCards(in);
+                default -> null;
+            };
+        } catch (RuntimeException ex) {
+            throw new SerializationException("Corrupted compact cache entry", ex);
+        }
+    }
+
+    private static byte typeOf(Object value) {
+        if (value instanceof UserResponseDto) {
+            return TYPE_USER;
+        }
+        if (value instanceof PaymentCardResponseDto) {
+            return TYPE_CARD;
+        }
+        if (value instanceof List<?> list && list.stream().allMatch(PaymentCardResponseDto.class::isInstance)) {
+            return TYPE_CARD_LIST;
+        }
+        return TYPE_FALLBACK;
+    }
+
+    private static void writeUser(Output out, UserResponseDto user) {
+        out.writeUuid(user.id());
+        out.writeString(user.name());
+        out.writeString(user.surname());
+        out.writeDate(user.birthDate());
+        out.writeString(user.email());
+        out.write(user.active() ? (byte) 1 : 0);
+        out.writeVarLong(user.version());
+        if (user.paymentCards() == null) {
+            out.write((byte) 0);
+        } else {
+            out.write((byte) 1);
+            writeCards(out, user.paymentCards());
+        }
+    }
+
+    private static UserResponseDto readUser(ByteBuffer in) {
+        UUID id = readUuid(in);
+        String name = readString(in);
+        String surname = readString(in);
+        LocalDate birthDate = readDate(in);
+        String email = readString(in);
+        boolean active = in.get() != 0;
+        long version = readVarLong(in);
+        List<PaymentCardResponseDto> cards = in.get() != 0 ? readCards(in) : null;
+        return new UserResponseDto(id, name, surname, birthDate, email, active, version, cards);
+    }
+
+    private static void writeCard(Output out, PaymentCardResponseDto card) {
+        out.writeUuid(card.id());
+        out.writeUuid(card.userId());
+        out.writeString(card.number());
+        out.writeString(card.holder());
+        out.writeDate(card.expirationDate());
+        out.write(card.active() ? (byte) 1 : 0);
+        out.writeVarLong(card.version());
+    }
+
+    private static PaymentCardResponseDto readCard(ByteBuffer in) {
+        return new PaymentCardResponseDto(readUuid(in), readUuid(in), readString(in), readString(in),
+                readDate(in), in.get() != 0, readVarLong(in));
+    }
+
+    private static void writeCards(Output out, List<?> cards) {
+        out.writeVarInt(cards.size());
+        for (Object card : cards) {
+            writeCard(out, (PaymentCardResponseDto) card);
+        }
+    }
+
+    private static List<PaymentCardResponseDto> readCards(ByteBuffer in) {
+        int size = readVarInt(in);
+        List<PaymentCardResponseDto> cards = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            cards.add(readCard(in));
+        }
+        return cards;
+    }
+
+    private static UUID readUuid(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    private static LocalDate readDate(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        return LocalDate.ofEpochDay(in.getInt());
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varlong");
+    }
+
+    private static final class Output {
+
+        private byte[] buffer = new byte[128];
+        private int size;
+
+        void write(byte b) {
+            ensureCapacity(1);
+            buffer[size++] = b;
+        }
+
+        void writeUuid(UUID uuid) {
+            if (uuid == null) {
+                write((byte) 0);
+                return;
+            }
+            write((byte) 1);
+            writeLong(uuid.getMostSignificantBits());
+            writeLong(uuid.getLeastSignificantBits());
+        }
+
+        void writeDate(LocalDate date) {
+            if (date == null) {
+                write((byte) 0);
+                return;
+            }
+            write((byte) 1);
+            int epochDay = Math.toIntExact(date.toEpochDay());
+            ensureCapacity(Integer.BYTES);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (epochDay >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((byte) value);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((byte) value);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void writeLong(long value) {
+            ensureCapacity(Long.BYTES);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package denis.userservice.cache;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+public class EarlyRefresh {
+
+    private static final String KEY_SEPARATOR = "::";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Executor executor;
+    private final long windowMillis;
+
+    public EarlyRefresh(StringRedisTemplate redisTemplate, Executor executor, Duration window) {
+        this.redisTemplate = redisTemplate;
+        this.executor = executor;
+        this.windowMillis = window.toMillis();
+    }
+
+    boolean isEnabled() {
+        return windowMillis > 0;
+    }
+
+    long remoteExpiresAt(String cacheName, Object key) {
+        if (!isEnabled()) {
+            return -1;
+        }
+        Long remaining = redisTemplate.getExpire(cacheName + KEY_SEPARATOR + key, TimeUnit.MILLISECONDS);
+        if (remaining == null || remaining < 0) {
+            return -1;
+        }
+        return System.currentTimeMillis() + remaining;
+    }
+
+    boolean shouldRefresh(long expiresAt) {
+        if (!isEnabled() || expiresAt < 0) {
+            return false;
+        }
+        long remaining = expiresAt - System.currentTimeMillis();
+        if (remaining >= windowMillis) {
+            return false;
+        }
+        double urgency = 1 - (double) Math.max(remaining, 0) / windowMillis;
+        return ThreadLocalRandom.current().nextDouble() < urgency;
+    }
+
+    void execute(Runnable refresh) {
+        executor.execute(refresh);
+    }
+}
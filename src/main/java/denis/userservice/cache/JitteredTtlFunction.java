@@ -0,0 +1,26 @@
+package denis.userservice.cache;
+
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class JitteredTtlFunction implements RedisCacheWriter.TtlFunction {
+
+    private final long baseMillis;
+    private final long jitterMillis;
+
+    public JitteredTtlFunction(Duration baseTtl, double jitterRatio) {
+        this.baseMillis = baseTtl.toMillis();
+        this.jitterMillis = (long) (baseMillis * Math.max(0, Math.min(jitterRatio, 1)));
+    }
+
+    @Override
+    public Duration getTimeToLive(Object key, Object value) {
+        if (jitterMillis == 0) {
+            return Duration.ofMillis(baseMillis);
+        }
+        long offset = ThreadLocalRandom.current().nextLong(-jitterMillis, jitterMillis + 1);
+        return Duration.ofMillis(Math.max(1, baseMillis + offset));
+    }
+}
@@ -0,0 +1,35 @@
+package denis.userservice.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class MissingKeyCache {
+
+    public static final String USERS = "usersMissing";
+    public static final String CARDS = "cardsMissing";
+
+    private final CacheManager cacheManager;
+
+    public boolean isMissing(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        return cache != null && cache.get(key) != null;
+    }
+
+    public void markMissing(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.put(key, Boolean.TRUE);
+        }
+    }
+
+    public void clear(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package denis.userservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnectionCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Slf4j
+public class RedisCircuitBreaker {
+
+    public enum State { CLOSED, OPEN }
+
+    private final StringRedisTemplate redisTemplate;
+    private final int failureThreshold;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final List<Runnable> recoveryActions = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean recoveryRequested = new AtomicBoolean();
+    private final Counter failures;
+    private final Counter shortCircuited;
+    private volatile State state = State.CLOSED;
+
+    public RedisCircuitBreaker(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry, int failureThreshold) {
+        this.redisTemplate = redisTemplate;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.failures = Counter.builder("cache.redis.breaker.failures").register(meterRegistry);
+        this.shortCircuited = Counter.builder("cache.redis.breaker.short.circuited").register(meterRegistry);
+        Gauge.builder("cache.redis.breaker.state", this, breaker -> breaker.getState() == State.OPEN ? 1 : 0)
+                .description("1 while Redis calls are short-circuited, 0 otherwise")
+                .register(meterRegistry);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isOpen() {
+        return state == State.OPEN;
+    }
+
+    public <T> T call(Supplier<T> operation, T fallback) {
+        if (isOpen()) {
+            shortCircuited.increment();
+            return fallback;
+        }
+        try {
+            T result = operation.get();
+            consecutiveFailures.set(0);
+            return result;
+        } catch (DataAccessException ex) {
+            recordFailure(ex);
+            return fallback;
+        }
+    }
+
+    public boolean run(Runnable operation) {
+        return call(() -> {
+            operation.run();
+            return true;
+        }, false);
+    }
+
+    public void recordFailure(RuntimeException ex) {
+        failures.increment();
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold && state == State.CLOSED) {
+            state = State.OPEN;
+            log.warn("Redis circuit breaker opened after {} consecutive failures", failureThreshold, ex);
+        }
+    }
+
+    public void onRecovery(Runnable action) {
+        recoveryActions.add(action);
+    }
+
+    public void requestRecovery() {
+        recoveryRequested.set(true);
+    }
+
+    // Replaying up to MAX_PENDING_EVICTIONS deletes is left to the scheduler thread so that no
+    // request has to wait for it after a failure that did not open the breaker.
+    private void recover() {
+        try {
+            recoveryActions.forEach(Runnable::run);
+        } catch (DataAccessException ex) {
+            recoveryRequested.set(true);
+            recordFailure(ex);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cache.redis.breaker.probe-interval:5s}")
+    public void probe() {
+        if (!isOpen()) {
+            if (recoveryRequested.compareAndSet(true, false)) {
+                recover();
+            }
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<String>) RedisConnectionCommands::ping);
+            recoveryActions.forEach(Runnable::run);
+        } catch (DataAccessException ex) {
+            log.debug("Redis is still unavailable", ex);
+            return;
+        }
+        consecutiveFailures.set(0);
+        state = State.CLOSED;
+        log.info("Redis circuit breaker closed");
+    }
+}
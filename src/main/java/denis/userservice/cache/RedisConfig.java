@@ -2,22 +2,103 @@ package denis.userservice.cache;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheErrorHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableCaching
-public class RedisConfig {
+@RequiredArgsConstructor
+public class RedisConfig implements CachingConfigurer {
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final ObjectProvider<RedisCircuitBreaker> circuitBreaker;
+
+    @Value("${cache.redis.ttl:1h}")
+    private Duration cacheTtl;
+
+    @Value("${cache.redis.ttl-jitter:0.1}")
+    private double cacheTtlJitter;
+
+    @Value("${cache.redis.refresh-ahead:5m}")
+    private Duration refreshAhead;
+
+    @Value("${cache.redis.refresh-threads:2}")
+    private int refreshThreads;
+
+    @Value("${cache.redis.serializer:json}")
+    private String cacheSerializer;
+
+    @Value("${cache.negative.ttl:30s}")
+    private Duration negativeCacheTtl;
+
+    @Value("${cache.redis.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${spring.data.redis.connect-timeout:500ms}")
+    private Duration connectTimeout;
+
+    @Value("${cache.near.maximum-size:10000}")
+    private long nearCacheMaximumSize;
+
+    @Value("${cache.near.ttl:60s}")
+    private Duration nearCacheTtl;
+
+    @Value("${cache.near.invalidation-topic:cache:invalidation}")
+    private String invalidationTopic;
+
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new ResilientCacheErrorHandler(circuitBreaker.getObject());
+    }
+
+    @Bean
+    public LettuceClientConfigurationBuilderCustomizer failFastLettuceCustomizer() {
+        return builder -> builder.clientOptions(ClientOptions.builder()
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .timeoutOptions(TimeoutOptions.enabled())
+                .socketOptions(SocketOptions.builder().connectTimeout(connectTimeout).build())
+                .build());
+    }
+
+    @Bean
+    public RedisCircuitBreaker redisCircuitBreaker(StringRedisTemplate stringRedisTemplate,
+                                                   MeterRegistry meterRegistry) {
+        return new RedisCircuitBreaker(stringRedisTemplate, meterRegistry, breakerFailureThreshold);
+    }
 
     @Bean
     public ObjectMapper redisObjectMapper() {
@@ -27,7 +108,10 @@ public class RedisConfig {
     }
 
     private GenericJackson2JsonRedisSerializer createJsonSerializer(ObjectMapper objectMapper) {
-        return new GenericJackson2JsonRedisSerializer(objectMapper);
+        return GenericJackson2JsonRedisSerializer.builder()
+                .objectMapper(objectMapper.copy())
+                .defaultTyping(true)
+                .build();
     }
 
     @Bean
@@ -50,16 +134,84 @@ public class RedisConfig {
     }
 
     @Bean
-    public RedisCacheManager cacheManager(
+    public RedisSerializer<Object> cacheValueSerializer(ObjectMapper objectMapper) {
+        return new CompactBinaryRedisSerializer(createJsonSerializer(objectMapper),
+                "binary".equalsIgnoreCase(cacheSerializer));
+    }
+
+    @Bean
+    public ReactiveRedisTemplate<String, Object> reactiveCacheTemplate(
+            ReactiveRedisConnectionFactory connectionFactory,
+            RedisSerializer<Object> cacheValueSerializer) {
+        RedisSerializationContext<String, Object> context = RedisSerializationContext
+                .<String, Object>newSerializationContext(new StringRedisSerializer())
+                .value(cacheValueSerializer)
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, context);
+    }
+
+    @Bean
+    public RedisCacheWriter.TtlFunction cacheTtlFunction() {
+        return new JitteredTtlFunction(cacheTtl, cacheTtlJitter);
+    }
+
+    @Bean
+    public RedisCacheManager redisCacheManager(
             RedisConnectionFactory connectionFactory,
-            ObjectMapper objectMapper) {
-        GenericJackson2JsonRedisSerializer jsonSerializer = createJsonSerializer(objectMapper);
+            RedisSerializer<Object> cacheValueSerializer,
+            RedisCacheWriter.TtlFunction cacheTtlFunction) {
         RedisCacheConfiguration cacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jsonSerializer))
-                .entryTtl(Duration.ofHours(1));
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(cacheValueSerializer))
+                .entryTtl(cacheTtlFunction);
 
+        RedisCacheConfiguration negativeCacheConfiguration = cacheConfiguration.entryTtl(negativeCacheTtl);
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(cacheConfiguration)
+                .withCacheConfiguration(MissingKeyCache.USERS, negativeCacheConfiguration)
+                .withCacheConfiguration(MissingKeyCache.CARDS, negativeCacheConfiguration)
                 .build();
     }
+
+    @Bean
+    public CacheInvalidationPublisher cacheInvalidationPublisher(StringRedisTemplate stringRedisTemplate) {
+        return new CacheInvalidationPublisher(stringRedisTemplate, invalidationTopic, instanceId);
+    }
+
+    @Bean
+    public EarlyRefresh cacheEarlyRefresh(StringRedisTemplate stringRedisTemplate) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(refreshThreads, refreshThreads,
+                30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1000),
+                Thread.ofPlatform().name("cache-refresh-", 0).daemon().factory());
+        executor.allowCoreThreadTimeOut(true);
+        return new EarlyRefresh(stringRedisTemplate, executor, refreshAhead);
+    }
+
+    @Bean
+    @Primary
+    public TwoLevelCacheManager cacheManager(
+            RedisCacheManager redisCacheManager,
+            CacheInvalidationPublisher cacheInvalidationPublisher,
+            MeterRegistry meterRegistry,
+            EarlyRefresh cacheEarlyRefresh,
+            RedisCircuitBreaker redisCircuitBreaker) {
+        return new TwoLevelCacheManager(redisCacheManager, cacheInvalidationPublisher, meterRegistry,
+                cacheEarlyRefresh, redisCircuitBreaker, nearCacheMaximumSize, nearCacheTtl, Map.of(
+                        MissingKeyCache.USERS, negativeLocalTtl(),
+                        MissingKeyCache.CARDS, negativeLocalTtl()));
+    }
+
+    private Duration negativeLocalTtl() {
+        return negativeCacheTtl.compareTo(nearCacheTtl) < 0 ? negativeCacheTtl : nearCacheTtl;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(new CacheInvalidationListener(cacheManager, instanceId),
+                new ChannelTopic(invalidationTopic));
+        return container;
+    }
 }
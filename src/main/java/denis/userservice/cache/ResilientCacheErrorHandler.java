@@ -0,0 +1,49 @@
+package denis.userservice.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.serializer.SerializationException;
+
+@Slf4j
+@RequiredArgsConstructor
+public class ResilientCacheErrorHandler implements CacheErrorHandler {
+
+    private final RedisCircuitBreaker circuitBreaker;
+
+    @Override
+    public void handleCacheGetError(RuntimeException exception, Cache cache, Object key) {
+        handle(exception, "get", cache, key);
+    }
+
+    @Override
+    public void handleCachePutError(RuntimeException exception, Cache cache, Object key, Object value) {
+        handle(exception, "put", cache, key);
+    }
+
+    @Override
+    public void handleCacheEvictError(RuntimeException exception, Cache cache, Object key) {
+        handle(exception, "evict", cache, key);
+    }
+
+    @Override
+    public void handleCacheClearError(RuntimeException exception, Cache cache) {
+        handle(exception, "clear", cache, "*");
+    }
+
+    private void handle(RuntimeException exception, String operation, Cache cache, Object key) {
+        if (exception instanceof SerializationException) {
+            log.warn("Cache {} on {}::{} could not (de)serialize the entry, serving from the database",
+                    operation, cache.getName(), key, exception);
+            return;
+        }
+        if (!(exception instanceof DataAccessException)) {
+            throw exception;
+        }
+        circuitBreaker.recordFailure(exception);
+        log.warn("Cache {} on {}::{} failed, serving from the database: {}",
+                operation, cache.getName(), key, exception.getMessage());
+    }
+}
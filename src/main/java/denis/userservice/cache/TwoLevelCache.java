@@ -0,0 +1,360 @@
+package denis.userservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    static final int MAX_PENDING_EVICTIONS = 10_000;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> localCache;
+    private final Cache remoteCache;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final NearCacheMetrics metrics;
+    private final EarlyRefresh earlyRefresh;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final Set<Object> pendingEvictions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pendingClear = new AtomicBoolean();
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong writeEpoch = new AtomicLong();
+
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> localCache,
+                         Cache remoteCache,
+                         CacheInvalidationPublisher invalidationPublisher,
+                         NearCacheMetrics metrics,
+                         EarlyRefresh earlyRefresh,
+                         RedisCircuitBreaker circuitBreaker) {
+        this.name = name;
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.invalidationPublisher = invalidationPublisher;
+        this.metrics = metrics;
+        this.earlyRefresh = earlyRefresh;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remoteCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return lookup(key, false);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = lookup(key, true);
+        if (wrapper != null) {
+            if (wrapper instanceof TimedValueWrapper timed && earlyRefresh.shouldRefresh(timed.remoteExpiresAt())) {
+                refreshAsync(key, valueLoader);
+            }
+            return (T) wrapper.get();
+        }
+
+        String localKey = localKey(key);
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(localKey, load);
+        if (running != null) {
+            metrics.coalesced().increment();
+            return (T) await(running, key, valueLoader);
+        }
+        try {
+            T value = load(key, valueLoader);
+            circuitBreaker.run(() -> remoteCache.put(key, value));
+            localCache.put(localKey, new TimedValueWrapper(value, -1));
+            load.complete(value);
+            return value;
+        } catch (RuntimeException ex) {
+            load.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(localKey, load);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        writeEpoch.incrementAndGet();
+        if (!circuitBreaker.run(() -> remoteCache.put(key, value))) {
+            markPendingEviction(key);
+        }
+        localCache.put(localKey(key), new SimpleValueWrapper(value));
+        publishEvict(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        writeEpoch.incrementAndGet();
+        AtomicReference<ValueWrapper> existing = new AtomicReference<>();
+        if (!circuitBreaker.run(() -> existing.set(remoteCache.putIfAbsent(key, value)))) {
+            markPendingEviction(key);
+        }
+        localCache.invalidate(localKey(key));
+        publishEvict(key);
+        return existing.get();
+    }
+
+    @Override
+    public void evict(Object key) {
+        writeEpoch.incrementAndGet();
+        if (!circuitBreaker.run(() -> remoteCache.evict(key))) {
+            markPendingEviction(key);
+        }
+        localCache.invalidate(localKey(key));
+        metrics.evictions().increment();
+        publishEvict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        writeEpoch.incrementAndGet();
+        Boolean evicted = circuitBreaker.call(() -> remoteCache.evictIfPresent(key), null);
+        if (evicted == null) {
+            markPendingEviction(key);
+        }
+        localCache.invalidate(localKey(key));
+        metrics.evictions().increment();
+        publishEvict(key);
+        return Boolean.TRUE.equals(evicted);
+    }
+
+    @Override
+    public void clear() {
+        writeEpoch.incrementAndGet();
+        if (!circuitBreaker.run(remoteCache::clear)) {
+            markPendingClear();
+        }
+        localCache.invalidateAll();
+        metrics.evictions().increment();
+        publishClear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        writeEpoch.incrementAndGet();
+        Boolean invalidated = circuitBreaker.call(remoteCache::invalidate, null);
+        if (invalidated == null) {
+            markPendingClear();
+        }
+        localCache.invalidateAll();
+        metrics.evictions().increment();
+        publishClear();
+        return Boolean.TRUE.equals(invalidated);
+    }
+
+    private ValueWrapper lookup(Object key, boolean trackExpiry) {
+        String localKey = localKey(key);
+        ValueWrapper local = localCache.getIfPresent(localKey);
+        if (local != null) {
+            metrics.l1Hits().increment();
+            return local;
+        }
+        metrics.l1Misses().increment();
+
+        ValueWrapper remote = circuitBreaker.call(() -> remoteGet(key), null);
+        if (remote == null) {
+            metrics.l2Misses().increment();
+            return null;
+        }
+        metrics.l2Hits().increment();
+        long expiresAt = trackExpiry ? circuitBreaker.call(() -> earlyRefresh.remoteExpiresAt(name, key), -1L) : -1;
+        TimedValueWrapper wrapper = new TimedValueWrapper(remote.get(), expiresAt);
+        localCache.put(localKey, wrapper);
+        return wrapper;
+    }
+
+    // An entry that can no longer be decoded is dropped instead of failing the request; the
+    // caller then loads it from the database and writes a fresh one.
+    private ValueWrapper remoteGet(Object key) {
+        try {
+            return remoteCache.get(key);
+        } catch (SerializationException ex) {
+            log.warn("Dropping unreadable cache entry {}::{}", name, key, ex);
+            remoteCache.evict(key);
+            return null;
+        }
+    }
+
+    private <T> T load(Object key, Callable<T> valueLoader) {
+        try {
+            return valueLoader.call();
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> running, Object key, Callable<?> valueLoader) {
+        try {
+            return running.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+        }
+    }
+
+    private void refreshAsync(Object key, Callable<?> valueLoader) {
+        String localKey = localKey(key);
+        CompletableFuture<Object> refresh = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(localKey, refresh) != null) {
+            return;
+        }
+        long epoch = writeEpoch.get();
+        try {
+            earlyRefresh.execute(() -> {
+                try {
+                    Object value = load(key, valueLoader);
+                    if (writeEpoch.get() == epoch) {
+                        circuitBreaker.run(() -> remoteCache.put(key, value));
+                        localCache.put(localKey, new TimedValueWrapper(value, -1));
+                        metrics.refreshes().increment();
+                    }
+                    refresh.complete(value);
+                } catch (RuntimeException ex) {
+                    log.debug("Early refresh of {}::{} failed", name, key, ex);
+                    refresh.completeExceptionally(ex);
+                } finally {
+                    inFlight.remove(localKey, refresh);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(localKey, refresh);
+            refresh.cancel(false);
+        }
+    }
+
+    private void publishEvict(Object key) {
+        circuitBreaker.run(() -> invalidationPublisher.publishEvict(name, localKey(key)));
+    }
+
+    private void publishClear() {
+        circuitBreaker.run(() -> invalidationPublisher.publishClear(name));
+    }
+
+    private void markPendingEviction(Object key) {
+        if (pendingEvictions.size() >= MAX_PENDING_EVICTIONS) {
+            pendingClear.set(true);
+            pendingEvictions.clear();
+        } else {
+            pendingEvictions.add(key);
+        }
+        circuitBreaker.requestRecovery();
+    }
+
+    private void markPendingClear() {
+        pendingClear.set(true);
+        circuitBreaker.requestRecovery();
+    }
+
+    void replayPendingEvictions() {
+        if (pendingClear.compareAndSet(true, false)) {
+            try {
+                remoteCache.clear();
+            } catch (RuntimeException ex) {
+                pendingClear.set(true);
+                throw ex;
+            }
+            pendingEvictions.clear();
+            return;
+        }
+        for (Object key : pendingEvictions) {
+            remoteCache.evict(key);
+            pendingEvictions.remove(key);
+        }
+    }
+
+    ValueWrapper getLocal(String key) {
+        return localCache.getIfPresent(key);
+    }
+
+    void putLocal(String key, Object value) {
+        localCache.put(key, new SimpleValueWrapper(value));
+    }
+
+    void evictAllLocal(Collection<?> keys, boolean remoteEvicted) {
+        writeEpoch.incrementAndGet();
+        for (Object key : keys) {
+            if (!remoteEvicted) {
+                markPendingEviction(key);
+            }
+            localCache.invalidate(localKey(key));
+        }
+        metrics.evictions().increment(keys.size());
+    }
+
+    CacheInvalidationPublisher getInvalidationPublisher() {
+        return invalidationPublisher;
+    }
+
+    void evictLocal(String key) {
+        writeEpoch.incrementAndGet();
+        localCache.invalidate(key);
+        metrics.remoteEvictions().increment();
+    }
+
+    void clearLocal() {
+        writeEpoch.incrementAndGet();
+        localCache.invalidateAll();
+        metrics.remoteEvictions().increment();
+    }
+
+    long localSize() {
+        return localCache.estimatedSize();
+    }
+
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    record TimedValueWrapper(Object value, long remoteExpiresAt) implements ValueWrapper {
+
+        @Override
+        public Object get() {
+            return value;
+        }
+    }
+
+    public record NearCacheMetrics(Counter l1Hits, Counter l1Misses, Counter l2Hits, Counter l2Misses,
+                                   Counter coalesced, Counter refreshes, Counter evictions,
+                                   Counter remoteEvictions) {
+    }
+}
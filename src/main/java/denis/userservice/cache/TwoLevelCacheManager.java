@@ -0,0 +1,136 @@
+package denis.userservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final RedisCacheManager redisCacheManager;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final MeterRegistry meterRegistry;
+    private final EarlyRefresh earlyRefresh;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final long localMaximumSize;
+    private final Duration localTtl;
+    private final Map<String, Duration> localTtlOverrides;
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(RedisCacheManager redisCacheManager,
+                                CacheInvalidationPublisher invalidationPublisher,
+                                MeterRegistry meterRegistry,
+                                EarlyRefresh earlyRefresh,
+                                RedisCircuitBreaker circuitBreaker,
+                                long localMaximumSize,
+                                Duration localTtl,
+                                Map<String, Duration> localTtlOverrides) {
+        this.redisCacheManager = redisCacheManager;
+        this.invalidationPublisher = invalidationPublisher;
+        this.meterRegistry = meterRegistry;
+        this.earlyRefresh = earlyRefresh;
+        this.circuitBreaker = circuitBreaker;
+        this.localMaximumSize = localMaximumSize;
+        this.localTtl = localTtl;
+        this.localTtlOverrides = localTtlOverrides;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return getTwoLevelCache(name);
+    }
+
+    public TwoLevelCache getTwoLevelCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    public void evictLocal(String cacheName, String key) {
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.evictLocal(key);
+        }
+    }
+
+    public void clearLocal(String cacheName) {
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.clearLocal();
+        }
+    }
+
+    private TwoLevelCache createCache(String name) {
+        Cache remoteCache = redisCacheManager.getCache(name);
+        if (remoteCache == null) {
+            throw new IllegalStateException("No Redis cache available for name " + name);
+        }
+        com.github.benmanes.caffeine.cache.Cache<String, Cache.ValueWrapper> localCache = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTtlOverrides.getOrDefault(name, localTtl))
+                .recordStats()
+                .build();
+
+        TwoLevelCache.NearCacheMetrics metrics = new TwoLevelCache.NearCacheMetrics(
+                requestCounter(name, "l1", "hit"),
+                requestCounter(name, "l1", "miss"),
+                requestCounter(name, "l2", "hit"),
+                requestCounter(name, "l2", "miss"),
+                Counter.builder("cache.near.loads.coalesced").tag("cache", name).register(meterRegistry),
+                Counter.builder("cache.near.refreshes").tag("cache", name).register(meterRegistry),
+                invalidationCounter(name, "local"),
+                invalidationCounter(name, "remote"));
+        registerHitRatio(name, "l1", metrics.l1Hits(), metrics.l1Misses());
+        registerHitRatio(name, "l2", metrics.l2Hits(), metrics.l2Misses());
+
+        TwoLevelCache cache = new TwoLevelCache(name, localCache, remoteCache, invalidationPublisher, metrics,
+                earlyRefresh, circuitBreaker);
+        circuitBreaker.onRecovery(cache::replayPendingEvictions);
+        Gauge.builder("cache.near.size", cache, TwoLevelCache::localSize)
+                .tag("cache", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.near.evictions", localCache, c -> c.stats().evictionCount())
+                .tag("cache", name)
+                .register(meterRegistry);
+        return cache;
+    }
+
+    private Counter requestCounter(String cacheName, String tier, String result) {
+        return Counter.builder("cache.near.requests")
+                .tag("cache", cacheName)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter invalidationCounter(String cacheName, String origin) {
+        return Counter.builder("cache.near.invalidations")
+                .description("Explicit evictions and clears, by whether this instance or a peer triggered them")
+                .tag("cache", cacheName)
+                .tag("origin", origin)
+                .register(meterRegistry);
+    }
+
+    private void registerHitRatio(String cacheName, String tier, Counter hits, Counter misses) {
+        Gauge.builder("cache.near.hit.ratio", () -> {
+                    double total = hits.count() + misses.count();
+                    return total == 0 ? 0 : hits.count() / total;
+                })
+                .tag("cache", cacheName)
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+}
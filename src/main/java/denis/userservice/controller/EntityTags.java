@@ -0,0 +1,73 @@
+package denis.userservice.controller;
+
+import denis.userservice.dto.response.PaymentCardResponseDto;
+import denis.userservice.dto.response.UserResponseDto;
+import denis.userservice.exception.CardNotFoundException;
+import denis.userservice.exception.InvalidEntityTagException;
+import denis.userservice.exception.UserNotFoundException;
+import denis.userservice.exception.VersionConflictException;
+
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    static String of(PaymentCardResponseDto card) {
+        return "\"" + card.version() + "\"";
+    }
+
+    // The user representation embeds its cards, so the tag also has to change when a card is
+    // added, removed or modified; only the user version part is used as an If-Match precondition.
+    static String of(UserResponseDto user) {
+        long cards = 1;
+        if (user.paymentCards() != null) {
+            for (PaymentCardResponseDto card : user.paymentCards()) {
+                UUID id = card.id();
+                cards = 31 * cards + id.getMostSignificantBits();
+                cards = 31 * cards + id.getLeastSignificantBits();
+                cards = 31 * cards + card.version();
+            }
+        }
+        return "\"" + user.version() + "." + Long.toHexString(cards) + "\"";
+    }
+
+    // If-Match has to equal the tag of the current representation, card part included, and fails
+    // when there is none; the returned version still makes the write itself conditional.
+    static <T> Long expectedVersion(String ifMatch, Supplier<T> current, Function<T, String> tag) {
+        Long expectedVersion = expectedVersion(ifMatch);
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        T representation;
+        try {
+            representation = current.get();
+        } catch (UserNotFoundException | CardNotFoundException ex) {
+            throw new VersionConflictException(ex.getMessage());
+        }
+        if (expectedVersion != null && !tag.apply(representation).equals(ifMatch.trim())) {
+            throw new VersionConflictException("If-Match does not match the current entity tag");
+        }
+        return expectedVersion;
+    }
+
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 2 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            throw new InvalidEntityTagException("If-Match must be a single strong entity tag");
+        }
+        String value = tag.substring(1, tag.length() - 1);
+        int cards = value.indexOf('.');
+        try {
+            return Long.parseLong(cards >= 0 ? value.substring(0, cards) : value);
+        } catch (NumberFormatException ex) {
+            throw new InvalidEntityTagException("If-Match is not a valid entity tag");
+        }
+    }
+}
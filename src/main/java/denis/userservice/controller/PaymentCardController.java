@@ -1,13 +1,22 @@
 package denis.userservice.controller;
 
+import denis.userservice.dto.request.CardBulkStatusRequestDto;
 import denis.userservice.dto.request.PaymentCardRequestDto;
+import denis.userservice.dto.response.BulkStatusReportDto;
+import denis.userservice.dto.response.CardImportReportDto;
+import denis.userservice.dto.response.CursorPageDto;
 import denis.userservice.dto.response.PaymentCardResponseDto;
+import denis.userservice.service.BulkStatusService;
+import denis.userservice.service.CardImportService;
 import denis.userservice.service.PaymentCardService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -18,6 +27,9 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
 
@@ -27,15 +39,28 @@ import java.util.UUID;
 public class PaymentCardController {
 
     private final PaymentCardService cardService;
+    private final CardImportService cardImportService;
+    private final BulkStatusService bulkStatusService;
 
     @PostMapping
     public ResponseEntity<PaymentCardResponseDto> create(@Valid @RequestBody PaymentCardRequestDto dto) {
         return new ResponseEntity<>(cardService.create(dto), HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CardImportReportDto> importCards(@RequestBody List<PaymentCardRequestDto> cards) {
+        return ResponseEntity.ok(cardImportService.importCards(cards));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<CardImportReportDto> importCardsNdjson(InputStream body) {
+        return ResponseEntity.ok(cardImportService.importNdjson(body));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<PaymentCardResponseDto> getById(@PathVariable UUID id) {
-        return ResponseEntity.ok(cardService.getById(id));
+        PaymentCardResponseDto card = cardService.getById(id);
+        return ResponseEntity.ok().eTag(EntityTags.of(card)).body(card);
     }
 
     @GetMapping
@@ -43,6 +68,23 @@ public class PaymentCardController {
         return ResponseEntity.ok(cardService.getAll(pageable));
     }
 
+    @GetMapping(params = "total=none")
+    public ResponseEntity<Slice<PaymentCardResponseDto>> getAllWithoutTotal(Pageable pageable) {
+        return ResponseEntity.ok(cardService.getSlice(pageable));
+    }
+
+    @GetMapping(params = "total=approximate")
+    public ResponseEntity<Page<PaymentCardResponseDto>> getAllWithApproximateTotal(Pageable pageable) {
+        return ResponseEntity.ok(cardService.getAllWithApproximateTotal(pageable));
+    }
+
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPageDto<PaymentCardResponseDto>> getAllByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(cardService.getAllByCursor(cursor, size));
+    }
+
     @GetMapping("/user-cards/{userId}")
     public ResponseEntity<List<PaymentCardResponseDto>> getByUserId(@PathVariable UUID userId) {
         return ResponseEntity.ok(cardService.getByUserId(userId));
@@ -51,27 +93,51 @@ public class PaymentCardController {
     @PutMapping("/{id}")
     public ResponseEntity<PaymentCardResponseDto> update(
             @PathVariable UUID id,
-            @Valid @RequestBody PaymentCardRequestDto dto
+            @Valid @RequestBody PaymentCardRequestDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
-        return ResponseEntity.ok(cardService.update(id, dto));
+        PaymentCardResponseDto card = cardService.update(id, dto, expectedVersion(id, ifMatch));
+        return ResponseEntity.ok().eTag(EntityTags.of(card)).body(card);
     }
 
     @PatchMapping("/{id}/activate")
-    public ResponseEntity<Void> activate(@PathVariable UUID id) {
-        cardService.activate(id);
+    public ResponseEntity<Void> activate(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        cardService.activate(id, expectedVersion(id, ifMatch));
         return ResponseEntity.noContent().build();
     }
 
     @PatchMapping("/{id}/deactivate")
-    public ResponseEntity<Void> deactivate(@PathVariable UUID id) {
-        cardService.deactivate(id);
+    public ResponseEntity<Void> deactivate(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        cardService.deactivate(id, expectedVersion(id, ifMatch));
         return ResponseEntity.noContent().build();
     }
 
+    @PatchMapping("/batch-activate")
+    public ResponseEntity<BulkStatusReportDto> activateAll(@Valid @RequestBody CardBulkStatusRequestDto dto) {
+        return ResponseEntity.ok(bulkStatusService.updateCards(dto, true));
+    }
+
+    @PatchMapping("/batch-deactivate")
+    public ResponseEntity<BulkStatusReportDto> deactivateAll(@Valid @RequestBody CardBulkStatusRequestDto dto) {
+        return ResponseEntity.ok(bulkStatusService.updateCards(dto, false));
+    }
+
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable UUID id) {
-        cardService.delete(id);
+    public ResponseEntity<Void> delete(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        cardService.delete(id, expectedVersion(id, ifMatch));
         return ResponseEntity.noContent().build();
     }
 
+    private Long expectedVersion(UUID id, String ifMatch) {
+        return EntityTags.expectedVersion(ifMatch, () -> cardService.getById(id), EntityTags::of);
+    }
 }
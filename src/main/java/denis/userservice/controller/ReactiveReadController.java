@@ -0,0 +1,48 @@
+package denis.userservice.controller;
+
+import denis.userservice.dto.response.PaymentCardResponseDto;
+import denis.userservice.dto.response.UserResponseDto;
+import denis.userservice.service.ReactiveReadService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/reactive")
+@RequiredArgsConstructor
+public class ReactiveReadController {
+
+    private final ReactiveReadService reactiveReadService;
+
+    @GetMapping("/users/{id}")
+    public Mono<UserResponseDto> getUserById(@PathVariable UUID id) {
+        return reactiveReadService.getUserById(id);
+    }
+
+    @GetMapping("/users")
+    public Mono<Page<UserResponseDto>> getAllUsers(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String surname,
+            Pageable pageable) {
+        return reactiveReadService.getUsers(name, surname, pageable);
+    }
+
+    @GetMapping("/cards/{id}")
+    public Mono<PaymentCardResponseDto> getCardById(@PathVariable UUID id) {
+        return reactiveReadService.getCardById(id);
+    }
+
+    @GetMapping("/cards/user-cards/{userId}")
+    public Flux<PaymentCardResponseDto> getCardsByUserId(@PathVariable UUID userId) {
+        return reactiveReadService.getCardsByUserId(userId);
+    }
+}
@@ -1,12 +1,22 @@
 package denis.userservice.controller;
 
+import denis.userservice.dto.request.ExportFormat;
+import denis.userservice.dto.request.UserBatchRequestDto;
+import denis.userservice.dto.request.UserBulkStatusRequestDto;
 import denis.userservice.dto.request.UserRequestDto;
+import denis.userservice.dto.response.BulkStatusReportDto;
+import denis.userservice.dto.response.CursorPageDto;
+import denis.userservice.dto.response.UserBatchResponseDto;
 import denis.userservice.dto.response.UserResponseDto;
+import denis.userservice.service.BulkStatusService;
+import denis.userservice.service.UserExportService;
 import denis.userservice.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -18,7 +28,9 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.UUID;
 
 @RestController
@@ -27,7 +39,8 @@ import java.util.UUID;
 public class UserController {
 
     private final UserService userService;
-
+    private final UserExportService userExportService;
+    private final BulkStatusService bulkStatusService;
 
     @PostMapping
     public ResponseEntity<UserResponseDto> createUser(@Valid @RequestBody UserRequestDto userDto) {
@@ -36,7 +49,13 @@ public class UserController {
 
     @GetMapping("/{id}")
     public ResponseEntity<UserResponseDto> getUserById(@PathVariable UUID id) {
-        return ResponseEntity.ok(userService.getById(id));
+        UserResponseDto user = userService.getById(id);
+        return ResponseEntity.ok().eTag(EntityTags.of(user)).body(user);
+    }
+
+    @PostMapping("/batch-get")
+    public ResponseEntity<UserBatchResponseDto> getUsersByIds(@Valid @RequestBody UserBatchRequestDto requestDto) {
+        return ResponseEntity.ok(userService.getAllByIds(requestDto.ids()));
     }
 
     @GetMapping
@@ -47,26 +66,83 @@ public class UserController {
         return ResponseEntity.ok(userService.getAll(name, surname, pageable));
     }
 
+    @GetMapping(params = "total=none")
+    public ResponseEntity<Slice<UserResponseDto>> getAllUsersWithoutTotal(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String surname,
+            Pageable pageable) {
+        return ResponseEntity.ok(userService.getSlice(name, surname, pageable));
+    }
+
+    @GetMapping(params = "total=approximate")
+    public ResponseEntity<Page<UserResponseDto>> getAllUsersWithApproximateTotal(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String surname,
+            Pageable pageable) {
+        return ResponseEntity.ok(userService.getAllWithApproximateTotal(name, surname, pageable));
+    }
+
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPageDto<UserResponseDto>> getAllUsersByCursor(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String surname,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(userService.getAllByCursor(name, surname, cursor, size));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .body(output -> userExportService.export(format, output));
+    }
+
     @PutMapping("/{id}")
-    public ResponseEntity<UserResponseDto> updateUser(@PathVariable UUID id, @Valid @RequestBody UserRequestDto userDto) {
-        return ResponseEntity.ok(userService.update(id, userDto));
+    public ResponseEntity<UserResponseDto> updateUser(
+            @PathVariable UUID id,
+            @Valid @RequestBody UserRequestDto userDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        UserResponseDto user = userService.update(id, userDto, expectedVersion(id, ifMatch));
+        return ResponseEntity.ok().eTag(EntityTags.of(user)).body(user);
     }
 
     @PatchMapping("/{id}/activate")
-    public ResponseEntity<Void> activate(@PathVariable UUID id) {
-        userService.activate(id);
+    public ResponseEntity<Void> activate(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        userService.activate(id, expectedVersion(id, ifMatch));
         return ResponseEntity.noContent().build();
     }
 
     @PatchMapping("/{id}/deactivate")
-    public ResponseEntity<Void> deactivate(@PathVariable UUID id) {
-        userService.deactivate(id);
+    public ResponseEntity<Void> deactivate(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        userService.deactivate(id, expectedVersion(id, ifMatch));
         return ResponseEntity.noContent().build();
     }
 
+    @PatchMapping("/batch-activate")
+    public ResponseEntity<BulkStatusReportDto> activateAll(@Valid @RequestBody UserBulkStatusRequestDto requestDto) {
+        return ResponseEntity.ok(bulkStatusService.updateUsers(requestDto, true));
+    }
+
+    @PatchMapping("/batch-deactivate")
+    public ResponseEntity<BulkStatusReportDto> deactivateAll(@Valid @RequestBody UserBulkStatusRequestDto requestDto) {
+        return ResponseEntity.ok(bulkStatusService.updateUsers(requestDto, false));
+    }
+
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable UUID id) {
-        userService.delete(id);
+    public ResponseEntity<Void> delete(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        userService.delete(id, expectedVersion(id, ifMatch));
         return ResponseEntity.noContent().build();
     }
+
+    private Long expectedVersion(UUID id, String ifMatch) {
+        return EntityTags.expectedVersion(ifMatch, () -> userService.getById(id), EntityTags::of);
+    }
 }
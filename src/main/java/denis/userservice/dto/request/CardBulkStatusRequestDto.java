@@ -0,0 +1,22 @@
+package denis.userservice.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record CardBulkStatusRequestDto(
+        @Size(max = 100000, message = "At most 100000 IDs can be updated at once")
+        List<@NotNull(message = "ID cannot be null") UUID> ids,
+        @Size(max = 20000, message = "At most 20000 user IDs can be updated at once")
+        List<@NotNull(message = "User ID cannot be null") UUID> userIds
+) {
+    @JsonIgnore
+    @AssertTrue(message = "Either card IDs or user IDs must be given")
+    public boolean isSingleTarget() {
+        return (ids != null && !ids.isEmpty()) != (userIds != null && !userIds.isEmpty());
+    }
+}
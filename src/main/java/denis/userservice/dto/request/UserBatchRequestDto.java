@@ -0,0 +1,14 @@
+package denis.userservice.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record UserBatchRequestDto(
+        @NotEmpty(message = "IDs cannot be empty")
+        @Size(max = 1000, message = "At most 1000 IDs can be requested at once")
+        List<@NotNull(message = "ID cannot be null") UUID> ids
+) {}
@@ -0,0 +1,24 @@
+package denis.userservice.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record UserBulkStatusRequestDto(
+        @Size(max = 100000, message = "At most 100000 IDs can be updated at once")
+        List<@NotNull(message = "ID cannot be null") UUID> ids,
+        String name,
+        String surname
+) {
+    @JsonIgnore
+    @AssertTrue(message = "Either IDs or a name/surname filter must be given")
+    public boolean isSingleTarget() {
+        boolean hasIds = ids != null && !ids.isEmpty();
+        boolean hasFilter = (name != null && !name.isBlank()) || (surname != null && !surname.isBlank());
+        return hasIds != hasFilter;
+    }
+}
@@ -0,0 +1,6 @@
+package denis.userservice.dto.response;
+
+public record BulkStatusReportDto(
+        int requested,
+        long changed
+) {}
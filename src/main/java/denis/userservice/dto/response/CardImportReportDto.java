@@ -0,0 +1,10 @@
+package denis.userservice.dto.response;
+
+import java.util.List;
+
+public record CardImportReportDto(
+        int total,
+        int imported,
+        int failed,
+        List<CardImportRowResultDto> rows
+) {}
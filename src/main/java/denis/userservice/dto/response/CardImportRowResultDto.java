@@ -0,0 +1,18 @@
+package denis.userservice.dto.response;
+
+import java.util.UUID;
+
+public record CardImportRowResultDto(
+        int row,
+        boolean success,
+        UUID cardId,
+        String error
+) {
+    public static CardImportRowResultDto imported(int row, UUID cardId) {
+        return new CardImportRowResultDto(row, true, cardId, null);
+    }
+
+    public static CardImportRowResultDto failed(int row, String error) {
+        return new CardImportRowResultDto(row, false, null, error);
+    }
+}
@@ -0,0 +1,9 @@
+package denis.userservice.dto.response;
+
+import java.util.List;
+
+public record CursorPageDto<T>(
+        List<T> content,
+        String nextCursor,
+        boolean hasNext
+) {}
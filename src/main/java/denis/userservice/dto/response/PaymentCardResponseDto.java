@@ -9,6 +9,7 @@ public record PaymentCardResponseDto(
         String number,
         String holder,
         LocalDate expirationDate,
-        boolean active
+        boolean active,
+        long version
 ) {
 }
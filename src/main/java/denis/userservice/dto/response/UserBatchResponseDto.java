@@ -0,0 +1,9 @@
+package denis.userservice.dto.response;
+
+import java.util.List;
+import java.util.UUID;
+
+public record UserBatchResponseDto(
+        List<UserResponseDto> users,
+        List<UUID> missingIds
+) {}
@@ -11,5 +11,10 @@ public record UserResponseDto(
         LocalDate birthDate,
         String email,
         boolean active,
+        long version,
         List<PaymentCardResponseDto> paymentCards
-) {}
\ No newline at end of file
+) {
+    public UserResponseDto withPaymentCards(List<PaymentCardResponseDto> cards) {
+        return new UserResponseDto(id, name, surname, birthDate, email, active, version, cards);
+    }
+}
\ No newline at end of file
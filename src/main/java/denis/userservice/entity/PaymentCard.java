@@ -17,12 +17,14 @@ public class PaymentCard extends Auditable{
     @Id
     @GeneratedValue
     private UUID id;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     private String number;
     private String holder;
     private LocalDate expirationDate;
     private Boolean active;
+    @Version
+    private Long version;
 
 }
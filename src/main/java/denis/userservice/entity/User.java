@@ -3,6 +3,7 @@ package denis.userservice.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -24,6 +25,9 @@ public class User extends Auditable{
     private LocalDate birthDate;
     private String email;
     private Boolean active;
+    @Version
+    private Long version;
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<PaymentCard> paymentCards;
 }
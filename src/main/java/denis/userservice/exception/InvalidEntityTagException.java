@@ -0,0 +1,7 @@
+package denis.userservice.exception;
+
+public class InvalidEntityTagException extends RuntimeException {
+    public InvalidEntityTagException(String message) {
+        super(message);
+    }
+}
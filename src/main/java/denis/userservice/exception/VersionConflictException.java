@@ -0,0 +1,7 @@
+package denis.userservice.exception;
+
+public class VersionConflictException extends RuntimeException {
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -11,5 +11,6 @@ public interface PaymentCardMapper {
     @Mapping(source = "user.id", target = "userId")
     PaymentCardResponseDto toResponseDto(PaymentCard card);
 
+    @Mapping(target = "version", ignore = true)
     PaymentCard toEntity(PaymentCardRequestDto dto);
 }
@@ -7,6 +7,12 @@ import org.mapstruct.*;
 
 @Mapper(componentModel = "spring", uses = PaymentCardMapper.class)
 public interface UserMapper {
+    @Mapping(target = "version", ignore = true)
     User toEntity(UserRequestDto dto);
+    @Mapping(target = "withPaymentCards", ignore = true)
     UserResponseDto toResponseDto(User user);
+
+    @Mapping(target = "paymentCards", ignore = true)
+    @Mapping(target = "withPaymentCards", ignore = true)
+    UserResponseDto toCoreDto(User user);
 }
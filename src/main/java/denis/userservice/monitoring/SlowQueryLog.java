@@ -0,0 +1,91 @@
+package denis.userservice.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+public class SlowQueryLog implements QueryExecutionListener {
+
+    private final long thresholdMillis;
+    private final int maxSamples;
+    private final Counter slowQueries;
+    private final Deque<SlowQuery> samples = new ArrayDeque<>();
+    private final Set<String> reportedQueries = ConcurrentHashMap.newKeySet();
+
+    public SlowQueryLog(MeterRegistry meterRegistry, Duration threshold, int maxSamples) {
+        this.thresholdMillis = threshold.toMillis();
+        this.maxSamples = Math.max(1, maxSamples);
+        this.slowQueries = Counter.builder("db.statements.slow")
+                .description("JDBC statements slower than monitoring.sql.slow-query-threshold")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() < thresholdMillis || queryInfoList.isEmpty()) {
+            return;
+        }
+        slowQueries.increment();
+        QueryInfo query = queryInfoList.get(0);
+        SlowQuery sample = new SlowQuery(Instant.now(), execInfo.getElapsedTime(), query.getQuery(),
+                parameterShape(query), execInfo.isBatch() ? execInfo.getBatchSize() : 0, execInfo.isSuccess());
+        synchronized (samples) {
+            if (samples.size() >= maxSamples) {
+                samples.removeFirst();
+            }
+            samples.addLast(sample);
+        }
+        if (reportedQueries.add(sample.sql())) {
+            log.warn("Slow SQL statement took {} ms with parameters {}: {}", sample.elapsedMillis(),
+                    sample.parameterTypes(), sample.sql());
+        }
+    }
+
+    public List<SlowQuery> getSamples() {
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    static List<String> parameterShape(QueryInfo query) {
+        if (query.getParametersList().isEmpty()) {
+            return List.of();
+        }
+        return query.getParametersList().get(0).stream()
+                .sorted(Comparator.comparingInt(operation ->
+                        operation.getArgs()[0] instanceof Integer index ? index : Integer.MAX_VALUE))
+                .map(SlowQueryLog::parameterType)
+                .toList();
+    }
+
+    private static String parameterType(ParameterSetOperation operation) {
+        Object[] args = operation.getArgs();
+        if ("setNull".equals(operation.getMethod().getName()) || args.length < 2 || args[1] == null) {
+            return "null";
+        }
+        return args[1].getClass().getSimpleName();
+    }
+
+    public record SlowQuery(Instant at, long elapsedMillis, String sql, List<String> parameterTypes,
+                            int batchSize, boolean success) {
+    }
+}
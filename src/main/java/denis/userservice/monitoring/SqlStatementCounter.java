@@ -0,0 +1,96 @@
+package denis.userservice.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class SqlStatementCounter implements QueryExecutionListener {
+
+    private final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+    public Scope open() {
+        return open(false);
+    }
+
+    public Scope open(boolean recordSql) {
+        Scope scope = new Scope(this, current.get(), recordSql);
+        current.set(scope);
+        return scope;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Scope scope = current.get();
+        if (scope != null) {
+            scope.statementStartedAt = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Scope scope = current.get();
+        if (scope == null) {
+            return;
+        }
+        long elapsed = scope.statementStartedAt > 0 ? System.nanoTime() - scope.statementStartedAt : 0;
+        scope.statementStartedAt = 0;
+        for (Scope target = scope; target != null; target = target.parent) {
+            target.record(elapsed, queryInfoList);
+        }
+    }
+
+    private void close(Scope scope) {
+        if (current.get() == scope) {
+            if (scope.parent != null) {
+                current.set(scope.parent);
+            } else {
+                current.remove();
+            }
+        }
+    }
+
+    public static class Scope implements AutoCloseable {
+
+        private final SqlStatementCounter counter;
+        private final Scope parent;
+        private final List<String> sql;
+        private int statements;
+        private long dbTimeNanos;
+        private long statementStartedAt;
+
+        private Scope(SqlStatementCounter counter, Scope parent, boolean recordSql) {
+            this.counter = counter;
+            this.parent = parent;
+            this.sql = recordSql ? new ArrayList<>() : null;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getDbTimeNanos() {
+            return dbTimeNanos;
+        }
+
+        public List<String> getSql() {
+            return sql == null ? List.of() : Collections.unmodifiableList(sql);
+        }
+
+        @Override
+        public void close() {
+            counter.close(this);
+        }
+
+        private void record(long elapsedNanos, List<QueryInfo> queryInfoList) {
+            statements++;
+            dbTimeNanos += elapsedNanos;
+            if (sql != null) {
+                queryInfoList.forEach(query -> sql.add(query.getQuery()));
+            }
+        }
+    }
+}
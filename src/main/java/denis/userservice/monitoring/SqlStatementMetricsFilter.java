@@ -0,0 +1,89 @@
+package denis.userservice.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+
+    private final SqlStatementCounter statementCounter;
+    private final MeterRegistry meterRegistry;
+    private final int statementBudget;
+    private final long timeBudgetNanos;
+    private final Set<String> reportedEndpoints = ConcurrentHashMap.newKeySet();
+
+    public SqlStatementMetricsFilter(SqlStatementCounter statementCounter,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${monitoring.sql.statement-budget:20}") int statementBudget,
+                                     @Value("${monitoring.sql.time-budget:250ms}") Duration timeBudget) {
+        this.statementCounter = statementCounter;
+        this.meterRegistry = meterRegistry;
+        this.statementBudget = statementBudget;
+        this.timeBudgetNanos = timeBudget.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatementCounter.Scope scope = statementCounter.open();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            scope.close();
+            record(request, scope);
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatementCounter.Scope scope) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        Tags tags = Tags.of("method", request.getMethod(), "uri", uri);
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("JDBC statements executed while serving a request")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(scope.getStatements());
+        Timer.builder("http.server.requests.sql.time")
+                .description("Time spent in JDBC statements while serving a request")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(scope.getDbTimeNanos(), TimeUnit.NANOSECONDS);
+
+        if (scope.getStatements() <= statementBudget && scope.getDbTimeNanos() <= timeBudgetNanos) {
+            return;
+        }
+        Counter.builder("http.server.requests.sql.budget.exceeded")
+                .description("Requests that exceeded the SQL statement or database time budget")
+                .tags(tags)
+                .register(meterRegistry)
+                .increment();
+        String endpoint = request.getMethod() + " " + uri;
+        if (reportedEndpoints.add(endpoint)) {
+            log.warn("{} executed {} SQL statements in {} ms, budget is {} statements and {} ms", endpoint,
+                    scope.getStatements(), TimeUnit.NANOSECONDS.toMillis(scope.getDbTimeNanos()), statementBudget,
+                    TimeUnit.NANOSECONDS.toMillis(timeBudgetNanos));
+        } else {
+            log.debug("{} executed {} SQL statements in {} ms", endpoint, scope.getStatements(),
+                    TimeUnit.NANOSECONDS.toMillis(scope.getDbTimeNanos()));
+        }
+    }
+}
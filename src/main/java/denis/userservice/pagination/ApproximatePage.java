@@ -0,0 +1,24 @@
+package denis.userservice.pagination;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.function.LongSupplier;
+
+public final class ApproximatePage {
+
+    private ApproximatePage() {
+    }
+
+    public static <T> Page<T> of(Slice<T> slice, LongSupplier estimatedTotal) {
+        Pageable pageable = slice.getPageable();
+        long seen = (pageable.isPaged() ? pageable.getOffset() : 0) + slice.getNumberOfElements();
+        if (!slice.hasNext()) {
+            return new PageImpl<>(slice.getContent(), pageable, seen);
+        }
+        long total = Math.max(estimatedTotal.getAsLong(), seen + 1);
+        return new PageImpl<>(slice.getContent(), pageable, total);
+    }
+}
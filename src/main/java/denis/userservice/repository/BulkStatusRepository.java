@@ -0,0 +1,74 @@
+package denis.userservice.repository;
+
+import denis.userservice.specification.UserSpecifications;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.SqlArrayValue;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class BulkStatusRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public List<UUID> findUserIds(String name, String surname) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        List<String> conditions = new ArrayList<>();
+        if (name != null && !name.isBlank()) {
+            conditions.add("lower(name) LIKE :name ESCAPE '\\'");
+            params.addValue("name", UserSpecifications.containsPattern(name));
+        }
+        if (surname != null && !surname.isBlank()) {
+            conditions.add("lower(surname) LIKE :surname ESCAPE '\\'");
+            params.addValue("surname", UserSpecifications.containsPattern(surname));
+        }
+        if (conditions.isEmpty()) {
+            throw new IllegalArgumentException("A bulk status filter needs a name or surname");
+        }
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE " + String.join(" AND ", conditions) + " ORDER BY id",
+                params, UUID.class);
+    }
+
+    public List<UUID> findCardIdsByUserIds(Collection<UUID> userIds) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM payment_cards WHERE user_id = ANY(:userIds) ORDER BY id",
+                new MapSqlParameterSource("userIds", uuidArray(userIds)), UUID.class);
+    }
+
+    public List<UUID> updateUserStatus(Collection<UUID> ids, boolean active) {
+        return jdbcTemplate.queryForList(
+                "UPDATE users SET active = :active, version = version + 1, updated_at = :updatedAt " +
+                        "WHERE id = ANY(:ids) AND active IS DISTINCT FROM :active RETURNING id",
+                statusChange(ids, active), UUID.class);
+    }
+
+    public List<CardStatusChange> updateCardStatus(Collection<UUID> ids, boolean active) {
+        return jdbcTemplate.query(
+                "UPDATE payment_cards SET active = :active, version = version + 1, updated_at = :updatedAt " +
+                        "WHERE id = ANY(:ids) AND active IS DISTINCT FROM :active RETURNING id, user_id",
+                statusChange(ids, active),
+                (rs, rowNum) -> new CardStatusChange(
+                        rs.getObject("id", UUID.class),
+                        rs.getObject("user_id", UUID.class)));
+    }
+
+    private static MapSqlParameterSource statusChange(Collection<UUID> ids, boolean active) {
+        return new MapSqlParameterSource()
+                .addValue("ids", uuidArray(ids))
+                .addValue("active", active)
+                .addValue("updatedAt", LocalDateTime.now());
+    }
+
+    private static SqlArrayValue uuidArray(Collection<UUID> ids) {
+        return new SqlArrayValue("uuid", ids.toArray());
+    }
+}
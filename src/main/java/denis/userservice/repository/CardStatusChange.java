@@ -0,0 +1,6 @@
+package denis.userservice.repository;
+
+import java.util.UUID;
+
+public record CardStatusChange(UUID id, UUID userId) {
+}
@@ -1,29 +1,71 @@
 package denis.userservice.repository;
 
 import denis.userservice.entity.PaymentCard;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface PaymentCardRepository extends JpaRepository<PaymentCard, UUID> {
     @Query(
-            value = "SELECT * FROM payment_cards WHERE user_id = :userId",
+            value = "SELECT * FROM payment_cards WHERE user_id = :userId ORDER BY created_at, id",
             nativeQuery = true
     )
     List<PaymentCard> findAllCardsByUserId(@Param("userId") UUID userId);
 
+    @Query("SELECT c FROM PaymentCard c WHERE c.user.id IN :userIds ORDER BY c.createdAt, c.id")
+    List<PaymentCard> findAllByUserIdIn(@Param("userIds") Collection<UUID> userIds);
+
+    long countByUserId(UUID userId);
+
+    Slice<PaymentCard> findAllBy(Pageable pageable);
+
+    @Query(
+            value = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = CAST('payment_cards' AS regclass)",
+            nativeQuery = true
+    )
+    long estimateCount();
+
+    @Query(
+            value = "SELECT * FROM payment_cards ORDER BY created_at, id LIMIT :limit",
+            nativeQuery = true
+    )
+    List<PaymentCard> findFirstByKeyset(@Param("limit") int limit);
+
+    @Query(
+            value = "SELECT * FROM payment_cards WHERE (created_at, id) > (:createdAt, :id) " +
+                    "ORDER BY created_at, id LIMIT :limit",
+            nativeQuery = true
+    )
+    List<PaymentCard> findAfterKeyset(@Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") UUID id,
+                                      @Param("limit") int limit);
+
+    @Query("SELECT c.user.id FROM PaymentCard c WHERE c.id = :cardId")
+    Optional<UUID> findUserIdById(@Param("cardId") UUID cardId);
+
+    @Query("SELECT c.user.id AS userId, COUNT(c) AS cardCount FROM PaymentCard c " +
+            "WHERE c.user.id IN :userIds GROUP BY c.user.id")
+    List<UserCardCount> countByUserIds(@Param("userIds") Collection<UUID> userIds);
+
     @Modifying
-    @Query("UPDATE PaymentCard c SET c.active = true WHERE c.id = :cardId")
-    void activate(@Param("cardId") UUID userId);
+    @Query("UPDATE PaymentCard c SET c.active = true, c.version = c.version + 1 " +
+            "WHERE c.id = :cardId AND c.version = COALESCE(:expectedVersion, c.version)")
+    int activate(@Param("cardId") UUID cardId, @Param("expectedVersion") Long expectedVersion);
 
     @Modifying
-    @Query("UPDATE PaymentCard c SET c.active = false WHERE c.id = :cardId")
-    void deactivate(@Param("cardId") UUID userId);
+    @Query("UPDATE PaymentCard c SET c.active = false, c.version = c.version + 1 " +
+            "WHERE c.id = :cardId AND c.version = COALESCE(:expectedVersion, c.version)")
+    int deactivate(@Param("cardId") UUID cardId, @Param("expectedVersion") Long expectedVersion);
 
 }
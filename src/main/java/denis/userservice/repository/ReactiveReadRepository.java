@@ -0,0 +1,182 @@
+package denis.userservice.repository;
+
+import denis.userservice.dto.response.PaymentCardResponseDto;
+import denis.userservice.dto.response.UserResponseDto;
+import denis.userservice.specification.UserSpecifications;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Readable;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Component
+public class ReactiveReadRepository {
+
+    private static final String USER_COLUMNS = "id, name, surname, birth_date, email, active, version";
+    private static final String CARD_COLUMNS = "id, user_id, number, holder, expiration_date, active, version";
+    private static final Map<String, String> USER_SORT_COLUMNS = Map.of(
+            "id", "id",
+            "name", "name",
+            "surname", "surname",
+            "birthDate", "birth_date",
+            "email", "email",
+            "active", "active",
+            "createdAt", "created_at",
+            "updatedAt", "updated_at");
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+
+    public ReactiveReadRepository(@Value("${reactive.r2dbc.url:}") String r2dbcUrl,
+                                  @Value("${spring.datasource.url}") String jdbcUrl,
+                                  @Value("${spring.datasource.username}") String username,
+                                  @Value("${spring.datasource.password}") String password,
+                                  @Value("${reactive.r2dbc.pool.max-size:20}") int maxPoolSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions
+                .parse(r2dbcUrl.isBlank() ? toR2dbcUrl(jdbcUrl) : r2dbcUrl)
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options))
+                .initialSize(0)
+                .maxSize(maxPoolSize)
+                .build());
+        this.databaseClient = DatabaseClient.create(connectionPool);
+    }
+
+    @PreDestroy
+    public void close() {
+        connectionPool.dispose();
+    }
+
+    public Mono<UserResponseDto> findUser(UUID id) {
+        return databaseClient.sql("SELECT " + USER_COLUMNS + " FROM users WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveReadRepository::toUser)
+                .one();
+    }
+
+    public Flux<UserResponseDto> findUsers(String name, String surname, Pageable pageable) {
+        Map<String, Object> binds = new LinkedHashMap<>();
+        String sql = "SELECT " + USER_COLUMNS + " FROM users" + where(name, surname, binds)
+                + orderBy(pageable.getSort()) + " LIMIT :limit OFFSET :offset";
+        binds.put("limit", pageable.getPageSize());
+        binds.put("offset", pageable.getOffset());
+        return bindAll(databaseClient.sql(sql), binds)
+                .map(ReactiveReadRepository::toUser)
+                .all();
+    }
+
+    public Mono<Long> countUsers(String name, String surname) {
+        Map<String, Object> binds = new LinkedHashMap<>();
+        String sql = "SELECT COUNT(*) AS total FROM users" + where(name, surname, binds);
+        return bindAll(databaseClient.sql(sql), binds)
+                .map(row -> row.get("total", Long.class))
+                .one();
+    }
+
+    public Mono<PaymentCardResponseDto> findCard(UUID id) {
+        return databaseClient.sql("SELECT " + CARD_COLUMNS + " FROM payment_cards WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveReadRepository::toCard)
+                .one();
+    }
+
+    public Flux<PaymentCardResponseDto> findCardsByUserId(UUID userId) {
+        return databaseClient.sql("SELECT " + CARD_COLUMNS + " FROM payment_cards WHERE user_id = :userId")
+                .bind("userId", userId)
+                .map(ReactiveReadRepository::toCard)
+                .all();
+    }
+
+    public Flux<PaymentCardResponseDto> findCardsByUserIds(Collection<UUID> userIds) {
+        return databaseClient.sql("SELECT " + CARD_COLUMNS + " FROM payment_cards WHERE user_id = ANY(:userIds)")
+                .bind("userIds", userIds.toArray(UUID[]::new))
+                .map(ReactiveReadRepository::toCard)
+                .all();
+    }
+
+    static String toR2dbcUrl(String jdbcUrl) {
+        if (!jdbcUrl.startsWith("jdbc:")) {
+            throw new IllegalArgumentException("Not a JDBC URL: " + jdbcUrl);
+        }
+        String url = jdbcUrl.substring("jdbc:".length());
+        int query = url.indexOf('?');
+        return "r2dbc:" + (query >= 0 ? url.substring(0, query) : url);
+    }
+
+    static String orderBy(Sort sort) {
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String column = USER_SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("Unknown sort property: " + order.getProperty());
+            }
+            orders.add(column + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        orders.add("id");
+        return " ORDER BY " + String.join(", ", orders);
+    }
+
+    private static String where(String name, String surname, Map<String, Object> binds) {
+        List<String> conditions = new ArrayList<>();
+        if (name != null && !name.isBlank()) {
+            conditions.add("lower(name) LIKE :name ESCAPE '\\'");
+            binds.put("name", UserSpecifications.containsPattern(name));
+        }
+        if (surname != null && !surname.isBlank()) {
+            conditions.add("lower(surname) LIKE :surname ESCAPE '\\'");
+            binds.put("surname", UserSpecifications.containsPattern(surname));
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindAll(DatabaseClient.GenericExecuteSpec spec,
+                                                             Map<String, Object> binds) {
+        for (Map.Entry<String, Object> bind : binds.entrySet()) {
+            spec = spec.bind(bind.getKey(), bind.getValue());
+        }
+        return spec;
+    }
+
+    private static UserResponseDto toUser(Readable row) {
+        return new UserResponseDto(
+                row.get("id", UUID.class),
+                row.get("name", String.class),
+                row.get("surname", String.class),
+                row.get("birth_date", LocalDate.class),
+                row.get("email", String.class),
+                Boolean.TRUE.equals(row.get("active", Boolean.class)),
+                row.get("version", Long.class),
+                null);
+    }
+
+    private static PaymentCardResponseDto toCard(Readable row) {
+        return new PaymentCardResponseDto(
+                row.get("id", UUID.class),
+                row.get("user_id", UUID.class),
+                row.get("number", String.class),
+                row.get("holder", String.class),
+                row.get("expiration_date", LocalDate.class),
+                Boolean.TRUE.equals(row.get("active", Boolean.class)),
+                row.get("version", Long.class));
+    }
+}
@@ -0,0 +1,8 @@
+package denis.userservice.repository;
+
+import java.util.UUID;
+
+public interface UserCardCount {
+    UUID getUserId();
+    long getCardCount();
+}
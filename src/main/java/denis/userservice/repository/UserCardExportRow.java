@@ -0,0 +1,20 @@
+package denis.userservice.repository;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public record UserCardExportRow(
+        UUID userId,
+        String name,
+        String surname,
+        LocalDate birthDate,
+        String email,
+        Boolean active,
+        Long version,
+        UUID cardId,
+        String number,
+        String holder,
+        LocalDate expirationDate,
+        Boolean cardActive,
+        Long cardVersion
+) {}
@@ -2,19 +2,62 @@ package denis.userservice.repository;
 
 
 import denis.userservice.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID>, JpaSpecificationExecutor<User> {
 
+    @Query(
+            value = "SELECT id FROM users WHERE id = :id FOR NO KEY UPDATE",
+            nativeQuery = true
+    )
+    Optional<UUID> lockById(@Param("id") UUID id);
+
+    @Query(
+            value = "SELECT id FROM users WHERE id IN (:ids) ORDER BY id FOR NO KEY UPDATE",
+            nativeQuery = true
+    )
+    List<UUID> lockExistingIds(@Param("ids") Collection<UUID> ids);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT new denis.userservice.repository.UserCardExportRow(" +
+            "u.id, u.name, u.surname, u.birthDate, u.email, u.active, u.version, " +
+            "c.id, c.number, c.holder, c.expirationDate, c.active, c.version) " +
+            "FROM User u LEFT JOIN u.paymentCards c ORDER BY u.id, c.id")
+    Stream<UserCardExportRow> streamAllWithCards();
+
+    @Query(
+            value = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = CAST('users' AS regclass)",
+            nativeQuery = true
+    )
+    long estimateCount();
+
+    @Query(
+            value = "SELECT id FROM users ORDER BY updated_at DESC NULLS LAST LIMIT :limit",
+            nativeQuery = true
+    )
+    List<UUID> findRecentlyUpdatedIds(@Param("limit") int limit);
+
     @Modifying
-    @Query("UPDATE User u SET u.active = true WHERE u.id = :userId")
-    void activate(@Param("userId") UUID userId);
+    @Query("UPDATE User u SET u.active = true, u.version = u.version + 1 " +
+            "WHERE u.id = :userId AND u.version = COALESCE(:expectedVersion, u.version)")
+    int activate(@Param("userId") UUID userId, @Param("expectedVersion") Long expectedVersion);
 
     @Modifying
-    @Query("UPDATE User u SET u.active = false WHERE u.id = :userId")
-    void deactivate(@Param("userId") UUID userId);
+    @Query("UPDATE User u SET u.active = false, u.version = u.version + 1 " +
+            "WHERE u.id = :userId AND u.version = COALESCE(:expectedVersion, u.version)")
+    int deactivate(@Param("userId") UUID userId, @Param("expectedVersion") Long expectedVersion);
 }
@@ -0,0 +1,85 @@
+package denis.userservice.repository;
+
+import denis.userservice.dto.request.PaymentCardRequestDto;
+import denis.userservice.dto.request.UserRequestDto;
+import denis.userservice.dto.response.PaymentCardResponseDto;
+import denis.userservice.dto.response.UserResponseDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class VersionedUpdateRepository {
+
+    private static final String VERSION_MATCHES =
+            "(CAST(:expectedVersion AS BIGINT) IS NULL OR version = :expectedVersion)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public Optional<UserResponseDto> updateUser(UUID id, UserRequestDto dto, Long expectedVersion) {
+        MapSqlParameterSource params = versioned(id, expectedVersion)
+                .addValue("name", dto.name())
+                .addValue("surname", dto.surname())
+                .addValue("birthDate", dto.birthDate())
+                .addValue("email", dto.email());
+        return jdbcTemplate.query(
+                "UPDATE users SET name = :name, surname = :surname, birth_date = :birthDate, email = :email, " +
+                        "version = version + 1, updated_at = :updatedAt " +
+                        "WHERE id = :id AND " + VERSION_MATCHES +
+                        " RETURNING id, name, surname, birth_date, email, active, version",
+                params, VersionedUpdateRepository::toUser).stream().findFirst();
+    }
+
+    public Optional<PaymentCardResponseDto> updateCard(UUID id, PaymentCardRequestDto dto, Long expectedVersion) {
+        MapSqlParameterSource params = versioned(id, expectedVersion)
+                .addValue("number", dto.number())
+                .addValue("holder", dto.holder())
+                .addValue("expirationDate", dto.expirationDate());
+        return jdbcTemplate.query(
+                "UPDATE payment_cards SET number = :number, holder = :holder, expiration_date = :expirationDate, " +
+                        "version = version + 1, updated_at = :updatedAt " +
+                        "WHERE id = :id AND " + VERSION_MATCHES +
+                        " RETURNING id, user_id, number, holder, expiration_date, active, version",
+                params, VersionedUpdateRepository::toCard).stream().findFirst();
+    }
+
+    private static MapSqlParameterSource versioned(UUID id, Long expectedVersion) {
+        return new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("expectedVersion", expectedVersion, Types.BIGINT)
+                .addValue("updatedAt", LocalDateTime.now());
+    }
+
+    private static UserResponseDto toUser(ResultSet rs, int rowNum) throws SQLException {
+        return new UserResponseDto(
+                rs.getObject("id", UUID.class),
+                rs.getString("name"),
+                rs.getString("surname"),
+                rs.getObject("birth_date", LocalDate.class),
+                rs.getString("email"),
+                rs.getBoolean("active"),
+                rs.getLong("version"),
+                null);
+    }
+
+    private static PaymentCardResponseDto toCard(ResultSet rs, int rowNum) throws SQLException {
+        return new PaymentCardResponseDto(
+                rs.getObject("id", UUID.class),
+                rs.getObject("user_id", UUID.class),
+                rs.getString("number"),
+                rs.getString("holder"),
+                rs.getObject("expiration_date", LocalDate.class),
+                rs.getBoolean("active"),
+                rs.getLong("version"));
+    }
+}
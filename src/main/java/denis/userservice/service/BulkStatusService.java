@@ -0,0 +1,10 @@
+package denis.userservice.service;
+
+import denis.userservice.dto.request.CardBulkStatusRequestDto;
+import denis.userservice.dto.request.UserBulkStatusRequestDto;
+import denis.userservice.dto.response.BulkStatusReportDto;
+
+public interface BulkStatusService {
+    BulkStatusReportDto updateUsers(UserBulkStatusRequestDto request, boolean active);
+    BulkStatusReportDto updateCards(CardBulkStatusRequestDto request, boolean active);
+}
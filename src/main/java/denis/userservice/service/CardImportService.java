@@ -0,0 +1,12 @@
+package denis.userservice.service;
+
+import denis.userservice.dto.request.PaymentCardRequestDto;
+import denis.userservice.dto.response.CardImportReportDto;
+
+import java.io.InputStream;
+import java.util.List;
+
+public interface CardImportService {
+    CardImportReportDto importCards(List<PaymentCardRequestDto> cards);
+    CardImportReportDto importNdjson(InputStream input);
+}
@@ -0,0 +1,73 @@
+package denis.userservice.service.Impl;
+
+import denis.userservice.cache.BatchCacheOperations;
+import denis.userservice.dto.request.CardBulkStatusRequestDto;
+import denis.userservice.dto.request.UserBulkStatusRequestDto;
+import denis.userservice.dto.response.BulkStatusReportDto;
+import denis.userservice.repository.BulkStatusRepository;
+import denis.userservice.repository.CardStatusChange;
+import denis.userservice.service.BulkStatusService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+@Timed("service.method")
+public class BulkStatusServiceImpl implements BulkStatusService {
+
+    private final BulkStatusRepository bulkStatusRepository;
+    private final BatchCacheOperations batchCacheOperations;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public BulkStatusServiceImpl(BulkStatusRepository bulkStatusRepository,
+                                 BatchCacheOperations batchCacheOperations,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${bulk.status.chunk-size:1000}") int chunkSize) {
+        this.bulkStatusRepository = bulkStatusRepository;
+        this.batchCacheOperations = batchCacheOperations;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @Override
+    public BulkStatusReportDto updateUsers(UserBulkStatusRequestDto request, boolean active) {
+        List<UUID> ids = request.ids() != null && !request.ids().isEmpty()
+                ? request.ids().stream().distinct().toList()
+                : bulkStatusRepository.findUserIds(request.name(), request.surname());
+        long changed = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            List<UUID> updated = transactionTemplate.execute(
+                    status -> bulkStatusRepository.updateUserStatus(chunk, active));
+            batchCacheOperations.evictAll("users", updated);
+            changed += updated.size();
+        }
+        return new BulkStatusReportDto(ids.size(), changed);
+    }
+
+    @Override
+    public BulkStatusReportDto updateCards(CardBulkStatusRequestDto request, boolean active) {
+        List<UUID> ids = request.ids() != null && !request.ids().isEmpty()
+                ? request.ids().stream().distinct().toList()
+                : bulkStatusRepository.findCardIdsByUserIds(request.userIds().stream().distinct().toList());
+        long changed = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            List<CardStatusChange> updated = transactionTemplate.execute(
+                    status -> bulkStatusRepository.updateCardStatus(chunk, active));
+            Set<UUID> owners = new LinkedHashSet<>();
+            updated.forEach(card -> owners.add(card.userId()));
+            batchCacheOperations.evictAll("cards", updated.stream().map(CardStatusChange::id).toList());
+            batchCacheOperations.evictAll("userCards", owners);
+            changed += updated.size();
+        }
+        return new BulkStatusReportDto(ids.size(), changed);
+    }
+}
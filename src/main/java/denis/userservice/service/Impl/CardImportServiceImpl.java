@@ -0,0 +1,221 @@
+package denis.userservice.service.Impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import denis.userservice.dto.request.PaymentCardRequestDto;
+import denis.userservice.dto.response.CardImportReportDto;
+import denis.userservice.dto.response.CardImportRowResultDto;
+import denis.userservice.entity.PaymentCard;
+import denis.userservice.mapper.PaymentCardMapper;
+import denis.userservice.repository.PaymentCardRepository;
+import denis.userservice.repository.UserCardCount;
+import denis.userservice.repository.UserRepository;
+import denis.userservice.service.CardImportService;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class CardImportServiceImpl implements CardImportService {
+
+    private static final int MAX_CARDS_PER_USER = 5;
+
+    private final PaymentCardRepository cardRepository;
+    private final UserRepository userRepository;
+    private final PaymentCardMapper cardMapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final CacheManager cacheManager;
+    private final int chunkSize;
+
+    public CardImportServiceImpl(PaymentCardRepository cardRepository,
+                                 UserRepository userRepository,
+                                 PaymentCardMapper cardMapper,
+                                 Validator validator,
+                                 ObjectMapper objectMapper,
+                                 TransactionTemplate transactionTemplate,
+                                 EntityManager entityManager,
+                                 CacheManager cacheManager,
+                                 @Value("${cards.import.chunk-size:500}") int chunkSize) {
+        this.cardRepository = cardRepository;
+        this.userRepository = userRepository;
+        this.cardMapper = cardMapper;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.cacheManager = cacheManager;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public CardImportReportDto importCards(List<PaymentCardRequestDto> cards) {
+        List<CardImportRowResultDto> results = new ArrayList<>(cards.size());
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        for (int i = 0; i < cards.size(); i++) {
+            chunk.add(new ImportRow(i + 1, cards.get(i), null));
+            if (chunk.size() == chunkSize) {
+                processChunk(chunk, results);
+                chunk.clear();
+            }
+        }
+        processChunk(chunk, results);
+        return toReport(results);
+    }
+
+    @Override
+    public CardImportReportDto importNdjson(InputStream input) {
+        List<CardImportRowResultDto> results = new ArrayList<>();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.add(parseLine(lineNumber, line));
+                if (chunk.size() == chunkSize) {
+                    processChunk(chunk, results);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        processChunk(chunk, results);
+        return toReport(results);
+    }
+
+    private ImportRow parseLine(int lineNumber, String line) {
+        try {
+            return new ImportRow(lineNumber, objectMapper.readValue(line, PaymentCardRequestDto.class), null);
+        } catch (JsonProcessingException ex) {
+            return new ImportRow(lineNumber, null, "Malformed JSON: " + ex.getOriginalMessage());
+        }
+    }
+
+    private void processChunk(List<ImportRow> chunk, List<CardImportRowResultDto> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Set<UUID> affectedUserIds = new HashSet<>();
+        try {
+            List<CardImportRowResultDto> chunkResults =
+                    transactionTemplate.execute(status -> importChunk(chunk, affectedUserIds));
+            results.addAll(chunkResults);
+            evictUserCards(affectedUserIds);
+        } catch (RuntimeException ex) {
+            log.warn("Card import chunk starting at row {} failed", chunk.getFirst().row(), ex);
+            chunk.forEach(row -> results.add(CardImportRowResultDto.failed(row.row(), "Chunk failed")));
+        }
+    }
+
+    private void evictUserCards(Set<UUID> userIds) {
+        Cache userCards = cacheManager.getCache("userCards");
+        if (userCards != null) {
+            userIds.forEach(userCards::evict);
+        }
+    }
+
+    private List<CardImportRowResultDto> importChunk(List<ImportRow> chunk, Set<UUID> affectedUserIds) {
+        CardImportRowResultDto[] chunkResults = new CardImportRowResultDto[chunk.size()];
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            ImportRow row = chunk.get(i);
+            String error = row.error() != null ? row.error() : validate(row.dto());
+            if (error != null) {
+                chunkResults[i] = CardImportRowResultDto.failed(row.row(), error);
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        Set<UUID> userIds = candidates.stream()
+                .map(i -> chunk.get(i).dto().userId())
+                .collect(Collectors.toSet());
+        Set<UUID> existingUserIds = userIds.isEmpty() ? Set.of() : new HashSet<>(userRepository.lockExistingIds(userIds));
+        Map<UUID, Long> cardCounts = new HashMap<>();
+        if (!existingUserIds.isEmpty()) {
+            for (UserCardCount count : cardRepository.countByUserIds(existingUserIds)) {
+                cardCounts.put(count.getUserId(), count.getCardCount());
+            }
+        }
+
+        List<PaymentCard> cards = new ArrayList<>();
+        List<Integer> cardRows = new ArrayList<>();
+        for (int i : candidates) {
+            ImportRow row = chunk.get(i);
+            UUID userId = row.dto().userId();
+            if (!existingUserIds.contains(userId)) {
+                chunkResults[i] = CardImportRowResultDto.failed(row.row(), "User not found");
+                continue;
+            }
+            long count = cardCounts.getOrDefault(userId, 0L);
+            if (count >= MAX_CARDS_PER_USER) {
+                chunkResults[i] = CardImportRowResultDto.failed(row.row(), "Card list is full");
+                continue;
+            }
+            cardCounts.put(userId, count + 1);
+            PaymentCard card = cardMapper.toEntity(row.dto());
+            card.setUser(userRepository.getReferenceById(userId));
+            card.setActive(true);
+            cards.add(card);
+            cardRows.add(i);
+            affectedUserIds.add(userId);
+        }
+
+        List<PaymentCard> saved = cardRepository.saveAll(cards);
+        cardRepository.flush();
+        for (int j = 0; j < saved.size(); j++) {
+            int i = cardRows.get(j);
+            chunkResults[i] = CardImportRowResultDto.imported(chunk.get(i).row(), saved.get(j).getId());
+        }
+        entityManager.clear();
+        return List.of(chunkResults);
+    }
+
+    private String validate(PaymentCardRequestDto dto) {
+        Set<ConstraintViolation<PaymentCardRequestDto>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private CardImportReportDto toReport(List<CardImportRowResultDto> results) {
+        int imported = (int) results.stream().filter(CardImportRowResultDto::success).count();
+        return new CardImportReportDto(results.size(), imported, results.size() - imported, results);
+    }
+
+    private record ImportRow(int row, PaymentCardRequestDto dto, String error) {
+    }
+}
@@ -1,54 +1,84 @@
 package denis.userservice.service.Impl;
 
+import denis.userservice.cache.AfterCommit;
+import denis.userservice.cache.BatchCacheOperations;
+import denis.userservice.cache.MissingKeyCache;
 import denis.userservice.dto.request.PaymentCardRequestDto;
+import denis.userservice.dto.response.CursorPageDto;
 import denis.userservice.dto.response.PaymentCardResponseDto;
 import denis.userservice.entity.PaymentCard;
-import denis.userservice.entity.User;
 import denis.userservice.exception.CardListFullException;
 import denis.userservice.exception.CardNotFoundException;
 import denis.userservice.exception.UserNotFoundException;
+import denis.userservice.exception.VersionConflictException;
 import denis.userservice.mapper.PaymentCardMapper;
+import denis.userservice.pagination.ApproximatePage;
+import denis.userservice.pagination.KeysetCursor;
 import denis.userservice.repository.PaymentCardRepository;
 import denis.userservice.repository.UserRepository;
+import denis.userservice.repository.VersionedUpdateRepository;
 import denis.userservice.service.PaymentCardService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheConfig;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Timed("service.method")
 @CacheConfig(cacheNames = "cards")
 public class PaymentCardServiceImpl implements PaymentCardService {
 
+    private static final int MAX_CARDS_PER_USER = 5;
+
     private final PaymentCardRepository cardRepository;
     private final UserRepository userRepository;
     private final PaymentCardMapper cardMapper;
+    private final CacheManager cacheManager;
+    private final BatchCacheOperations batchCacheOperations;
+    private final MissingKeyCache missingKeyCache;
+    private final VersionedUpdateRepository versionedUpdateRepository;
 
-    @CachePut(key = "#result.id")
+    @Transactional
     @Override
     public PaymentCardResponseDto create(PaymentCardRequestDto dto) {
         PaymentCard card = cardMapper.toEntity(dto);
-        User user = userRepository.findById(dto.userId()).orElseThrow(() -> new UserNotFoundException("User not found"));
-        if(user.getPaymentCards() != null && user.getPaymentCards().size() >= 5) {
+        userRepository.lockById(dto.userId()).orElseThrow(() -> new UserNotFoundException("User not found"));
+        if (cardRepository.countByUserId(dto.userId()) >= MAX_CARDS_PER_USER) {
             throw new CardListFullException("Card list is full");
         }
-        card.setUser(user);
-        return cardMapper.toResponseDto(cardRepository.save(card));
+        card.setUser(userRepository.getReferenceById(dto.userId()));
+        PaymentCardResponseDto created = cardMapper.toResponseDto(cardRepository.save(card));
+        missingKeyCache.clear(MissingKeyCache.CARDS, created.id());
+        refreshAfterCommit(created.id(), created, dto.userId());
+        return created;
     }
 
-    @Cacheable(key = "#id")
+    @Cacheable(key = "#id", sync = true)
     @Override
     public PaymentCardResponseDto getById(UUID id) {
-        return cardMapper.toResponseDto(cardRepository.findById(id).orElseThrow(() -> new CardNotFoundException("Card not found")));
+        if (missingKeyCache.isMissing(MissingKeyCache.CARDS, id)) {
+            throw new CardNotFoundException("Card not found");
+        }
+        return cardMapper.toResponseDto(cardRepository.findById(id).orElseThrow(() -> {
+            missingKeyCache.markMissing(MissingKeyCache.CARDS, id);
+            return new CardNotFoundException("Card not found");
+        }));
     }
 
 
@@ -62,40 +92,133 @@ public class PaymentCardServiceImpl implements PaymentCardService {
         );
     }
 
+    @Override
+    public Slice<PaymentCardResponseDto> getSlice(Pageable pageable) {
+        return cardRepository.findAllBy(pageable).map(cardMapper::toResponseDto);
+    }
+
+    @Override
+    public Page<PaymentCardResponseDto> getAllWithApproximateTotal(Pageable pageable) {
+        return ApproximatePage.of(getSlice(pageable), () -> {
+            long estimate = cardRepository.estimateCount();
+            return estimate >= 0 ? estimate : cardRepository.count();
+        });
+    }
+
+    @Override
+    public CursorPageDto<PaymentCardResponseDto> getAllByCursor(String cursor, int size) {
+        int pageSize = KeysetCursor.pageSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<PaymentCard> cards = after == null
+                ? cardRepository.findFirstByKeyset(pageSize + 1)
+                : cardRepository.findAfterKeyset(after.createdAt(), after.id(), pageSize + 1);
+        return KeysetCursor.page(cards, pageSize,
+                card -> new KeysetCursor(card.getCreatedAt(), card.getId()),
+                cardMapper::toResponseDto);
+    }
+
+    @Cacheable(cacheNames = "userCards", key = "#userId", sync = true)
     @Override
     public List<PaymentCardResponseDto> getByUserId(UUID userId) {
-        return cardRepository.findAllCardsByUserId(userId).stream().map(cardMapper::toResponseDto).toList();
+        return cardRepository.findAllCardsByUserId(userId).stream()
+                .map(cardMapper::toResponseDto)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<UUID, List<PaymentCardResponseDto>> getByUserIds(Collection<UUID> userIds) {
+        Map<UUID, List<PaymentCardResponseDto>> result = new HashMap<>();
+        batchCacheOperations.getAll("userCards", userIds, List.class)
+                .forEach((userId, cards) -> result.put(userId, (List<PaymentCardResponseDto>) cards));
+
+        List<UUID> misses = userIds.stream().filter(userId -> !result.containsKey(userId)).toList();
+        if (!misses.isEmpty()) {
+            Map<UUID, List<PaymentCardResponseDto>> loaded = new HashMap<>();
+            misses.forEach(userId -> loaded.put(userId, new ArrayList<>()));
+            for (PaymentCard card : cardRepository.findAllByUserIdIn(misses)) {
+                loaded.get(card.getUser().getId()).add(cardMapper.toResponseDto(card));
+            }
+            batchCacheOperations.putAllIfAbsent("userCards", loaded);
+            result.putAll(loaded);
+        }
+        return result;
     }
 
     @Transactional
-    @CachePut(key = "#id")
     @Override
-    public PaymentCardResponseDto update(UUID id, PaymentCardRequestDto dto) {
-        PaymentCard card = cardRepository.findById(id).orElseThrow(() -> new CardNotFoundException("Card not found"));
-        card.setNumber(dto.number());
-        card.setExpirationDate(dto.expirationDate());
-        card.setHolder(dto.holder());
-        return cardMapper.toResponseDto(cardRepository.save(card));
+    public PaymentCardResponseDto update(UUID id, PaymentCardRequestDto dto, Long expectedVersion) {
+        PaymentCardResponseDto updated = versionedUpdateRepository.updateCard(id, dto, expectedVersion)
+                .orElseThrow(() -> expectedVersion != null
+                        ? preconditionFailed(id)
+                        : new CardNotFoundException("Card not found"));
+        refreshAfterCommit(id, updated, updated.userId());
+        return updated;
     }
 
     @Transactional
-    @CacheEvict(key = "#id")
     @Override
-    public void activate(UUID id) {
-        cardRepository.activate(id);
+    public void activate(UUID id, Long expectedVersion) {
+        if (cardRepository.activate(id, expectedVersion) == 0) {
+            checkNotModified(id, expectedVersion);
+        }
+        refreshAfterCommit(id, null, cardRepository.findUserIdById(id).orElse(null));
     }
 
     @Transactional
-    @CacheEvict(key = "#id")
     @Override
-    public void deactivate(UUID id) {
-        cardRepository.deactivate(id);
+    public void deactivate(UUID id, Long expectedVersion) {
+        if (cardRepository.deactivate(id, expectedVersion) == 0) {
+            checkNotModified(id, expectedVersion);
+        }
+        refreshAfterCommit(id, null, cardRepository.findUserIdById(id).orElse(null));
+    }
+
+    private void checkNotModified(UUID id, Long expectedVersion) {
+        if (expectedVersion != null) {
+            throw preconditionFailed(id);
+        }
+    }
+
+    private VersionConflictException preconditionFailed(UUID id) {
+        return new VersionConflictException(cardRepository.existsById(id)
+                ? "Card was modified concurrently"
+                : "Card does not exist");
     }
 
     @Transactional
-    @CacheEvict(key = "#id")
     @Override
-    public void delete(UUID id) {
-        cardRepository.deleteById(id);
+    public void delete(UUID id, Long expectedVersion) {
+        UUID ownerId = cardRepository.findById(id).map(card -> {
+            if (expectedVersion != null && !expectedVersion.equals(card.getVersion())) {
+                throw new VersionConflictException("Card was modified concurrently");
+            }
+            cardRepository.delete(card);
+            return card.getUser().getId();
+        }).orElseGet(() -> {
+            if (expectedVersion != null) {
+                throw new VersionConflictException("Card does not exist");
+            }
+            return null;
+        });
+        refreshAfterCommit(id, null, ownerId);
+        AfterCommit.run(() -> missingKeyCache.markMissing(MissingKeyCache.CARDS, id));
+    }
+
+    private void refreshAfterCommit(UUID cardId, PaymentCardResponseDto card, UUID ownerId) {
+        AfterCommit.run(() -> {
+            Cache cards = cacheManager.getCache("cards");
+            if (cards != null) {
+                if (card != null) {
+                    cards.put(cardId, card);
+                } else {
+                    cards.evict(cardId);
+                }
+            }
+            Cache userCards = cacheManager.getCache("userCards");
+            if (userCards != null && ownerId != null) {
+                userCards.evict(ownerId);
+            }
+        });
     }
 }
@@ -0,0 +1,112 @@
+package denis.userservice.service.Impl;
+
+import denis.userservice.cache.RedisCircuitBreaker;
+import denis.userservice.dto.response.PaymentCardResponseDto;
+import denis.userservice.dto.response.UserResponseDto;
+import denis.userservice.exception.CardNotFoundException;
+import denis.userservice.exception.UserNotFoundException;
+import denis.userservice.repository.ReactiveReadRepository;
+import denis.userservice.service.ReactiveReadService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class ReactiveReadServiceImpl implements ReactiveReadService {
+
+    private static final String KEY_SEPARATOR = "::";
+
+    private final ReactiveReadRepository readRepository;
+    private final ReactiveRedisTemplate<String, Object> reactiveCacheTemplate;
+    private final RedisCacheWriter.TtlFunction cacheTtlFunction;
+    private final RedisCircuitBreaker circuitBreaker;
+
+    @Override
+    public Mono<UserResponseDto> getUserById(UUID id) {
+        Mono<UserResponseDto> core = cached("users", id, UserResponseDto.class)
+                .switchIfEmpty(Mono.defer(() -> readRepository.findUser(id)
+                        .switchIfEmpty(Mono.error(() -> new UserNotFoundException("User not found")))
+                        .flatMap(user -> store("users", id, user))));
+        return Mono.zip(core, cards(id), UserResponseDto::withPaymentCards);
+    }
+
+    @Override
+    public Mono<Page<UserResponseDto>> getUsers(String name, String surname, Pageable pageable) {
+        return Mono.zip(readRepository.findUsers(name, surname, pageable).collectList(),
+                        readRepository.countUsers(name, surname))
+                .flatMap(page -> {
+                    List<UserResponseDto> users = page.getT1();
+                    if (users.isEmpty()) {
+                        return Mono.just(new PageImpl<>(users, pageable, page.getT2()));
+                    }
+                    return readRepository.findCardsByUserIds(users.stream().map(UserResponseDto::id).toList())
+                            .collectMultimap(PaymentCardResponseDto::userId)
+                            .map(cards -> new PageImpl<>(users.stream()
+                                    .map(user -> user.withPaymentCards(
+                                            new ArrayList<>(cards.getOrDefault(user.id(), List.of()))))
+                                    .toList(), pageable, page.getT2()));
+                });
+    }
+
+    @Override
+    public Mono<PaymentCardResponseDto> getCardById(UUID id) {
+        return cached("cards", id, PaymentCardResponseDto.class)
+                .switchIfEmpty(Mono.defer(() -> readRepository.findCard(id)
+                        .switchIfEmpty(Mono.error(() -> new CardNotFoundException("Card not found")))
+                        .flatMap(card -> store("cards", id, card))));
+    }
+
+    @Override
+    public Flux<PaymentCardResponseDto> getCardsByUserId(UUID userId) {
+        return cards(userId).flatMapIterable(cards -> cards);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<List<PaymentCardResponseDto>> cards(UUID userId) {
+        return cached("userCards", userId, List.class)
+                .map(cards -> (List<PaymentCardResponseDto>) cards)
+                .switchIfEmpty(Mono.defer(() -> readRepository.findCardsByUserId(userId)
+                        .collect(ArrayList<PaymentCardResponseDto>::new, ArrayList::add)
+                        .flatMap(cards -> store("userCards", userId, cards))));
+    }
+
+    private <T> Mono<T> cached(String cacheName, Object key, Class<T> type) {
+        if (circuitBreaker.isOpen()) {
+            return Mono.empty();
+        }
+        return reactiveCacheTemplate.opsForValue().get(cacheName + KEY_SEPARATOR + key)
+                .filter(type::isInstance)
+                .map(type::cast)
+                .onErrorResume(ex -> {
+                    if (ex instanceof DataAccessException dataAccessException) {
+                        circuitBreaker.recordFailure(dataAccessException);
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    private <T> Mono<T> store(String cacheName, Object key, T value) {
+        if (circuitBreaker.isOpen()) {
+            return Mono.just(value);
+        }
+        return reactiveCacheTemplate.opsForValue()
+                .set(cacheName + KEY_SEPARATOR + key, value, cacheTtlFunction.getTimeToLive(key, value))
+                .onErrorResume(DataAccessException.class, ex -> {
+                    circuitBreaker.recordFailure(ex);
+                    return Mono.just(false);
+                })
+                .thenReturn(value);
+    }
+}
@@ -0,0 +1,107 @@
+package denis.userservice.service.Impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import denis.userservice.dto.request.ExportFormat;
+import denis.userservice.dto.response.PaymentCardResponseDto;
+import denis.userservice.dto.response.UserResponseDto;
+import denis.userservice.repository.UserCardExportRow;
+import denis.userservice.repository.UserRepository;
+import denis.userservice.service.UserExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class UserExportServiceImpl implements UserExportService {
+
+    private static final String CSV_HEADER = "user_id,name,surname,birth_date,email,active," +
+            "card_id,number,holder,expiration_date,card_active";
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    @Override
+    public void export(ExportFormat format, OutputStream output) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        try (Stream<UserCardExportRow> rows = userRepository.streamAllWithCards()) {
+            if (format == ExportFormat.CSV) {
+                writeCsv(rows.iterator(), writer);
+            } else {
+                writeNdjson(rows.iterator(), writer);
+            }
+            writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void writeNdjson(Iterator<UserCardExportRow> rows, Writer writer) throws IOException {
+        UserCardExportRow current = null;
+        List<PaymentCardResponseDto> cards = new ArrayList<>();
+        while (rows.hasNext()) {
+            UserCardExportRow row = rows.next();
+            if (current != null && !current.userId().equals(row.userId())) {
+                writeUserLine(current, cards, writer);
+                cards = new ArrayList<>();
+            }
+            current = row;
+            if (row.cardId() != null) {
+                cards.add(new PaymentCardResponseDto(row.cardId(), row.userId(), row.number(), row.holder(),
+                        row.expirationDate(), Boolean.TRUE.equals(row.cardActive()), versionOf(row.cardVersion())));
+            }
+        }
+        if (current != null) {
+            writeUserLine(current, cards, writer);
+        }
+    }
+
+    private void writeUserLine(UserCardExportRow row, List<PaymentCardResponseDto> cards, Writer writer)
+            throws IOException {
+        UserResponseDto user = new UserResponseDto(row.userId(), row.name(), row.surname(), row.birthDate(),
+                row.email(), Boolean.TRUE.equals(row.active()), versionOf(row.version()), cards);
+        writer.write(objectMapper.writeValueAsString(user));
+        writer.write('\n');
+    }
+
+    private void writeCsv(Iterator<UserCardExportRow> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (rows.hasNext()) {
+            UserCardExportRow row = rows.next();
+            writer.write(String.join(",",
+                    csv(row.userId()), csv(row.name()), csv(row.surname()), csv(row.birthDate()),
+                    csv(row.email()), csv(row.active()), csv(row.cardId()), csv(row.number()),
+                    csv(row.holder()), csv(row.expirationDate()), csv(row.cardActive())));
+            writer.write('\n');
+        }
+    }
+
+    private static long versionOf(Long version) {
+        return version != null ? version : 0;
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -1,98 +1,253 @@
 package denis.userservice.service.Impl;
 
+import denis.userservice.cache.AfterCommit;
+import denis.userservice.cache.BatchCacheOperations;
+import denis.userservice.cache.MissingKeyCache;
 import denis.userservice.dto.request.UserRequestDto;
+import denis.userservice.dto.response.CursorPageDto;
+import denis.userservice.dto.response.PaymentCardResponseDto;
+import denis.userservice.dto.response.UserBatchResponseDto;
 import denis.userservice.dto.response.UserResponseDto;
+import denis.userservice.entity.PaymentCard;
 import denis.userservice.entity.User;
 import denis.userservice.exception.UserNotFoundException;
+import denis.userservice.exception.VersionConflictException;
 import denis.userservice.mapper.UserMapper;
+import denis.userservice.pagination.ApproximatePage;
+import denis.userservice.pagination.KeysetCursor;
 import denis.userservice.repository.UserRepository;
+import denis.userservice.repository.VersionedUpdateRepository;
+import denis.userservice.service.PaymentCardService;
 import denis.userservice.service.UserService;
 import denis.userservice.specification.UserSpecifications;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheConfig;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
-@CacheConfig(cacheNames = "users")
+@Timed("service.method")
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final BatchCacheOperations batchCacheOperations;
+    private final PaymentCardService cardService;
+    private final CacheManager cacheManager;
+    private final MissingKeyCache missingKeyCache;
+    private final VersionedUpdateRepository versionedUpdateRepository;
 
-    @CachePut(key="#result.id")
     @Override
     public UserResponseDto create(UserRequestDto dto) {
         User entity = userMapper.toEntity(dto);
-        User saved = userRepository.save(entity);
-        return userMapper.toResponseDto(saved);
+        UserResponseDto core = userMapper.toCoreDto(userRepository.save(entity));
+        missingKeyCache.clear(MissingKeyCache.USERS, core.id());
+        usersCache().put(core.id(), core);
+        return core.withPaymentCards(new ArrayList<>());
     }
 
-    @Cacheable(key="#id")
     @Override
     public UserResponseDto getById(UUID id) {
-        return userMapper.toResponseDto(userRepository.findById(id)
-                .orElseThrow(() -> new UserNotFoundException("User not found")));
+        return getCore(id).withPaymentCards(cardService.getByUserId(id));
     }
 
+    private UserResponseDto getCore(UUID id) {
+        try {
+            return usersCache().get(id, () -> userMapper.toCoreDto(loadUser(id)));
+        } catch (Cache.ValueRetrievalException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private User loadUser(UUID id) {
+        if (missingKeyCache.isMissing(MissingKeyCache.USERS, id)) {
+            throw new UserNotFoundException("User not found");
+        }
+        return userRepository.findById(id).orElseThrow(() -> {
+            missingKeyCache.markMissing(MissingKeyCache.USERS, id);
+            return new UserNotFoundException("User not found");
+        });
+    }
+
+    private Cache usersCache() {
+        return cacheManager.getCache("users");
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public UserBatchResponseDto getAllByIds(List<UUID> ids) {
+        List<UUID> distinctIds = ids.stream().distinct().toList();
+        Map<UUID, UserResponseDto> found = new HashMap<>(
+                batchCacheOperations.getAll("users", distinctIds, UserResponseDto.class));
+
+        List<UUID> misses = distinctIds.stream().filter(id -> !found.containsKey(id)).toList();
+        if (!misses.isEmpty()) {
+            Map<UUID, UserResponseDto> loaded = userRepository.findAllById(misses).stream()
+                    .map(userMapper::toCoreDto)
+                    .collect(Collectors.toMap(UserResponseDto::id, Function.identity()));
+            batchCacheOperations.putAllIfAbsent("users", loaded);
+            found.putAll(loaded);
+        }
+
+        Map<UUID, List<PaymentCardResponseDto>> cards = found.isEmpty()
+                ? Map.of()
+                : cardService.getByUserIds(found.keySet());
+        return new UserBatchResponseDto(
+                distinctIds.stream()
+                        .filter(found::containsKey)
+                        .map(id -> found.get(id).withPaymentCards(cards.get(id)))
+                        .toList(),
+                distinctIds.stream().filter(id -> !found.containsKey(id)).toList());
+    }
+
+    @Transactional(readOnly = true)
     @Override
     public Page<UserResponseDto> getAll(String name, String surname, Pageable pageable) {
-        Specification<User> spec = Specification.unrestricted();
-        spec = userSpecifications(spec,name);
-        spec = userSpecifications(spec,surname);
-        Page<User> users = userRepository.findAll(spec,pageable);
+        Page<User> users = userRepository.findAll(filterSpecification(name, surname),pageable);
         return new PageImpl<>(
                 users.get().map(userMapper::toResponseDto).toList(),
                 pageable, users.getTotalElements());
     }
 
-     private Specification<User> userSpecifications(Specification<User> spec, String field) {
-         if (field != null && !field.isBlank()) {
-             return spec.and(UserSpecifications.nameLike(field));
-         }
-         return spec;
-     }
+    @Transactional(readOnly = true)
+    @Override
+    public Slice<UserResponseDto> getSlice(String name, String surname, Pageable pageable) {
+        return userRepository.findBy(filterSpecification(name, surname), query -> query.slice(pageable))
+                .map(userMapper::toResponseDto);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Page<UserResponseDto> getAllWithApproximateTotal(String name, String surname, Pageable pageable) {
+        Specification<User> spec = filterSpecification(name, surname);
+        Slice<UserResponseDto> slice = userRepository.findBy(spec, query -> query.slice(pageable))
+                .map(userMapper::toResponseDto);
+        return ApproximatePage.of(slice, () -> hasFilter(name) || hasFilter(surname)
+                ? userRepository.count(spec)
+                : estimateUserCount());
+    }
+
+    private long estimateUserCount() {
+        long estimate = userRepository.estimateCount();
+        return estimate >= 0 ? estimate : userRepository.count();
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public CursorPageDto<UserResponseDto> getAllByCursor(String name, String surname, String cursor, int size) {
+        int pageSize = KeysetCursor.pageSize(size);
+        Specification<User> spec = filterSpecification(name, surname);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        if (after != null) {
+            spec = spec.and(UserSpecifications.after(after));
+        }
+        List<User> users = userRepository.findBy(spec,
+                query -> query.sortBy(KeysetCursor.SORT).limit(pageSize + 1).all());
+        return KeysetCursor.page(users, pageSize,
+                user -> new KeysetCursor(user.getCreatedAt(), user.getId()),
+                userMapper::toResponseDto);
+    }
+
+    private Specification<User> filterSpecification(String name, String surname) {
+        Specification<User> spec = Specification.unrestricted();
+        if (hasFilter(name)) {
+            spec = spec.and(UserSpecifications.nameLike(name));
+        }
+        if (hasFilter(surname)) {
+            spec = spec.and(UserSpecifications.surnameLike(surname));
+        }
+        return spec;
+    }
+
+    private static boolean hasFilter(String value) {
+        return value != null && !value.isBlank();
+    }
 
     @Transactional
-    @CachePut(key="#id")
     @Override
-    public UserResponseDto update(UUID id, UserRequestDto dto) {
-        User user = userRepository.findById(id).orElseThrow(() -> new UserNotFoundException("User not found"));
-        user.setName(dto.name());
-        user.setSurname(dto.surname());
-        user.setEmail(dto.email());
-        user.setBirthDate(dto.birthDate());
-        User updated = userRepository.save(user);
-        return userMapper.toResponseDto(updated);
+    public UserResponseDto update(UUID id, UserRequestDto dto, Long expectedVersion) {
+        UserResponseDto core = versionedUpdateRepository.updateUser(id, dto, expectedVersion)
+                .orElseThrow(() -> expectedVersion != null
+                        ? preconditionFailed(id)
+                        : new UserNotFoundException("User not found"));
+        AfterCommit.run(() -> usersCache().put(id, core));
+        return core.withPaymentCards(cardService.getByUserId(id));
     }
 
     @Transactional
-    @CacheEvict(key = "#id")
     @Override
-    public void activate(UUID id) {
-        userRepository.activate(id);
+    public void activate(UUID id, Long expectedVersion) {
+        if (userRepository.activate(id, expectedVersion) == 0) {
+            checkNotModified(id, expectedVersion);
+        }
+        AfterCommit.run(() -> usersCache().evict(id));
     }
 
     @Transactional
-    @CacheEvict(key = "#id")
     @Override
-    public void deactivate(UUID id) {
-        userRepository.deactivate(id);
+    public void deactivate(UUID id, Long expectedVersion) {
+        if (userRepository.deactivate(id, expectedVersion) == 0) {
+            checkNotModified(id, expectedVersion);
+        }
+        AfterCommit.run(() -> usersCache().evict(id));
+    }
+
+    private void checkNotModified(UUID id, Long expectedVersion) {
+        if (expectedVersion != null) {
+            throw preconditionFailed(id);
+        }
+    }
+
+    private VersionConflictException preconditionFailed(UUID id) {
+        return new VersionConflictException(userRepository.existsById(id)
+                ? "User was modified concurrently"
+                : "User does not exist");
     }
 
     @Transactional
-    @CacheEvict(key = "#id")
     @Override
-    public void delete(UUID id) {
-        userRepository.deleteById(id);
+    public void delete(UUID id, Long expectedVersion) {
+        List<UUID> cardIds = userRepository.findById(id).map(user -> {
+            if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+                throw new VersionConflictException("User was modified concurrently");
+            }
+            List<UUID> ids = user.getPaymentCards() == null
+                    ? List.of()
+                    : user.getPaymentCards().stream().map(PaymentCard::getId).toList();
+            userRepository.delete(user);
+            return ids;
+        }).orElseGet(() -> {
+            if (expectedVersion != null) {
+                throw new VersionConflictException("User does not exist");
+            }
+            return List.of();
+        });
+        AfterCommit.run(() -> {
+            usersCache().evict(id);
+            Cache userCards = cacheManager.getCache("userCards");
+            if (userCards != null) {
+                userCards.evict(id);
+            }
+            batchCacheOperations.evictAll("cards", cardIds);
+            missingKeyCache.markMissing(MissingKeyCache.USERS, id);
+        });
     }
 }
@@ -1,10 +1,14 @@
 package denis.userservice.service;
 
 import denis.userservice.dto.request.PaymentCardRequestDto;
+import denis.userservice.dto.response.CursorPageDto;
 import denis.userservice.dto.response.PaymentCardResponseDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 
@@ -12,9 +16,13 @@ public interface PaymentCardService {
     PaymentCardResponseDto create(PaymentCardRequestDto dto);
     PaymentCardResponseDto getById(UUID id);
     Page<PaymentCardResponseDto> getAll(Pageable pageable);
+    Slice<PaymentCardResponseDto> getSlice(Pageable pageable);
+    Page<PaymentCardResponseDto> getAllWithApproximateTotal(Pageable pageable);
+    CursorPageDto<PaymentCardResponseDto> getAllByCursor(String cursor, int size);
     List<PaymentCardResponseDto> getByUserId(UUID userId);
-    PaymentCardResponseDto update(UUID id, PaymentCardRequestDto dto);
-    void activate(UUID id);
-    void deactivate(UUID id);
-    void delete(UUID id);
+    Map<UUID, List<PaymentCardResponseDto>> getByUserIds(Collection<UUID> userIds);
+    PaymentCardResponseDto update(UUID id, PaymentCardRequestDto dto, Long expectedVersion);
+    void activate(UUID id, Long expectedVersion);
+    void deactivate(UUID id, Long expectedVersion);
+    void delete(UUID id, Long expectedVersion);
 }
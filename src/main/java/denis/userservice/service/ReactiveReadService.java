@@ -0,0 +1,17 @@
+package denis.userservice.service;
+
+import denis.userservice.dto.response.PaymentCardResponseDto;
+import denis.userservice.dto.response.UserResponseDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+public interface ReactiveReadService {
+    Mono<UserResponseDto> getUserById(UUID id);
+    Mono<Page<UserResponseDto>> getUsers(String name, String surname, Pageable pageable);
+    Mono<PaymentCardResponseDto> getCardById(UUID id);
+    Flux<PaymentCardResponseDto> getCardsByUserId(UUID userId);
+}
@@ -0,0 +1,9 @@
+package denis.userservice.service;
+
+import denis.userservice.dto.request.ExportFormat;
+
+import java.io.OutputStream;
+
+public interface UserExportService {
+    void export(ExportFormat format, OutputStream output);
+}
@@ -1,18 +1,26 @@
 package denis.userservice.service;
 
 import denis.userservice.dto.request.UserRequestDto;
+import denis.userservice.dto.response.CursorPageDto;
+import denis.userservice.dto.response.UserBatchResponseDto;
 import denis.userservice.dto.response.UserResponseDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import java.util.List;
 import java.util.UUID;
 
 
 public interface  UserService {
     UserResponseDto create(UserRequestDto dto);
     UserResponseDto getById(UUID id);
+    UserBatchResponseDto getAllByIds(List<UUID> ids);
     Page<UserResponseDto> getAll(String name, String surname, Pageable pageable);
-    UserResponseDto update(UUID id, UserRequestDto dto);
-    void activate(UUID id);
-    void deactivate(UUID id);
-    void delete(UUID id);
+    Slice<UserResponseDto> getSlice(String name, String surname, Pageable pageable);
+    Page<UserResponseDto> getAllWithApproximateTotal(String name, String surname, Pageable pageable);
+    CursorPageDto<UserResponseDto> getAllByCursor(String name, String surname, String cursor, int size);
+    UserResponseDto update(UUID id, UserRequestDto dto, Long expectedVersion);
+    void activate(UUID id, Long expectedVersion);
+    void deactivate(UUID id, Long expectedVersion);
+    void delete(UUID id, Long expectedVersion);
 }
@@ -1,17 +1,39 @@
 package denis.userservice.specification;
 
 import denis.userservice.entity.User;
+import denis.userservice.pagination.KeysetCursor;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDateTime;
+import java.util.UUID;
+
 public class UserSpecifications {
 
+    private static final char ESCAPE = '\\';
+
     public static Specification<User> nameLike(String name) {
         return (root, query, criteriaBuilder) ->
-                criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), "%" + name.toLowerCase() + "%");
+                criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), containsPattern(name), ESCAPE);
     }
 
     public static Specification<User> surnameLike(String surname) {
         return (root, query, criteriaBuilder) ->
-                criteriaBuilder.like(criteriaBuilder.lower(root.get("surname")), "%" + surname.toLowerCase() + "%");
+                criteriaBuilder.like(criteriaBuilder.lower(root.get("surname")), containsPattern(surname), ESCAPE);
+    }
+
+    public static Specification<User> after(KeysetCursor cursor) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.and(
+                criteriaBuilder.greaterThanOrEqualTo(root.<LocalDateTime>get("createdAt"), cursor.createdAt()),
+                criteriaBuilder.or(
+                        criteriaBuilder.greaterThan(root.<LocalDateTime>get("createdAt"), cursor.createdAt()),
+                        criteriaBuilder.greaterThan(root.<UUID>get("id"), cursor.id())));
+    }
+
+    public static String containsPattern(String value) {
+        String escaped = value.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
     }
 }
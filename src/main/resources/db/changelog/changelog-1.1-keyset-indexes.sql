@@ -0,0 +1,8 @@
+UPDATE users SET created_at = CURRENT_TIMESTAMP WHERE created_at IS NULL;
+ALTER TABLE users ALTER COLUMN created_at SET NOT NULL;
+
+UPDATE payment_cards SET created_at = CURRENT_TIMESTAMP WHERE created_at IS NULL;
+ALTER TABLE payment_cards ALTER COLUMN created_at SET NOT NULL;
+
+CREATE INDEX idx_users_created_at_id ON users(created_at, id);
+CREATE INDEX idx_cards_created_at_id ON payment_cards(created_at, id);
@@ -0,0 +1,4 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_users_name_trgm ON users USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX idx_users_surname_trgm ON users USING gin (lower(surname) gin_trgm_ops);
@@ -0,0 +1,113 @@
+package denis.userservice.cache;
+
+import denis.userservice.dto.response.PaymentCardResponseDto;
+import denis.userservice.dto.response.UserResponseDto;
+import denis.userservice.entity.PaymentCard;
+import denis.userservice.entity.User;
+import denis.userservice.mapper.PaymentCardMapper;
+import denis.userservice.mapper.UserMapper;
+import denis.userservice.repository.PaymentCardRepository;
+import denis.userservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class CacheWarmUpTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PaymentCardRepository cardRepository;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private PaymentCardMapper cardMapper;
+
+    @Mock
+    private BatchCacheOperations batchCacheOperations;
+
+    @Mock
+    private RedisConnectionFactory connectionFactory;
+
+    private CacheWarmUp cacheWarmUp;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        cacheWarmUp = new CacheWarmUp(userRepository, cardRepository, userMapper, cardMapper,
+                batchCacheOperations, connectionFactory, true, 3, 2, 2);
+        when(userRepository.findAllById(anyList())).thenAnswer(invocation -> {
+            List<UUID> ids = invocation.getArgument(0);
+            List<User> users = new ArrayList<>();
+            for (UUID id : ids) {
+                User user = new User();
+                user.setId(id);
+                users.add(user);
+            }
+            return users;
+        });
+        when(userMapper.toCoreDto(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            return new UserResponseDto(user.getId(), null, null, null, null, true, 0, null);
+        });
+        when(cardMapper.toResponseDto(any(PaymentCard.class))).thenAnswer(invocation -> {
+            PaymentCard card = invocation.getArgument(0);
+            return new PaymentCardResponseDto(card.getId(), card.getUser().getId(), null, null, null, true, 0);
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testWarmUp_LoadsRecentUsersInBatchesWithoutOverwriting() {
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        when(userRepository.findRecentlyUpdatedIds(3)).thenReturn(ids);
+        User owner = new User();
+        owner.setId(ids.get(0));
+        PaymentCard card = new PaymentCard();
+        card.setId(UUID.randomUUID());
+        card.setUser(owner);
+        when(cardRepository.findAllByUserIdIn(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<UUID>>getArgument(0).contains(owner.getId())
+                        ? List.of(card) : List.of());
+
+        assertEquals(3, cacheWarmUp.warmUp());
+
+        verify(userRepository, times(2)).findAllById(anyList());
+        ArgumentCaptor<Map<UUID, List<PaymentCardResponseDto>>> userCards = ArgumentCaptor.forClass(Map.class);
+        verify(batchCacheOperations, times(2)).putAllIfAbsent(eq("userCards"), userCards.capture());
+        int cardsCached = userCards.getAllValues().stream()
+                .mapToInt(entries -> entries.values().stream().mapToInt(List::size).sum())
+                .sum();
+        assertEquals(1, cardsCached);
+        verify(batchCacheOperations, times(2)).putAllIfAbsent(eq("users"), anyMap());
+    }
+
+    @Test
+    void testHealth_OutOfServiceUntilInitialWarmUpFinishes() {
+        CacheWarmUpHealthIndicator indicator = new CacheWarmUpHealthIndicator(cacheWarmUp);
+        when(userRepository.findRecentlyUpdatedIds(3)).thenThrow(new IllegalStateException("db down"));
+
+        assertEquals(Status.OUT_OF_SERVICE, indicator.health().getStatus());
+
+        cacheWarmUp.run("test");
+
+        assertEquals(CacheWarmUp.State.FAILED, cacheWarmUp.getState());
+        assertEquals(Status.UP, indicator.health().getStatus());
+    }
+}
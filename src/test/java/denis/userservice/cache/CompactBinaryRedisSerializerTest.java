@@ -0,0 +1,113 @@
+package denis.userservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import denis.userservice.dto.response.PaymentCardResponseDto;
+import denis.userservice.dto.response.UserResponseDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompactBinaryRedisSerializerTest {
+
+    private RedisSerializer<Object> json;
+    private CompactBinaryRedisSerializer serializer;
+    private UserResponseDto user;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        json = GenericJackson2JsonRedisSerializer.builder()
+                .objectMapper(objectMapper)
+                .defaultTyping(true)
+                .build();
+        serializer = new CompactBinaryRedisSerializer(json, true);
+
+        UUID userId = UUID.randomUUID();
+        List<PaymentCardResponseDto> cards = new ArrayList<>();
+        cards.add(new PaymentCardResponseDto(UUID.randomUUID(), userId, "1111222233334444", "ŁUKASZ NOWAK",
+                LocalDate.of(2030, 12, 31), true, 3));
+        cards.add(new PaymentCardResponseDto(UUID.randomUUID(), userId, "5555666677778888", null, null, false, 0));
+        user = new UserResponseDto(userId, "Łukasz", "Nowak", LocalDate.of(1990, 1, 1), "lukasz@example.com",
+                true, 300, cards);
+    }
+
+    @Test
+    void testRoundTrip_PreservesUserWithCards() {
+        byte[] bytes = serializer.serialize(user);
+
+        assertEquals(CompactBinaryRedisSerializer.MAGIC, bytes[0]);
+        assertEquals(user, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void testRoundTrip_PreservesCoreUserAndCardList() {
+        UserResponseDto core = user.withPaymentCards(null);
+
+        assertEquals(core, serializer.deserialize(serializer.serialize(core)));
+        assertEquals(user.paymentCards(), serializer.deserialize(serializer.serialize(user.paymentCards())));
+        assertEquals(List.of(), serializer.deserialize(serializer.serialize(new ArrayList<>())));
+    }
+
+    @Test
+    void testSerialize_IsSmallerThanJson() {
+        assertTrue(serializer.serialize(user).length * 2 < json.serialize(user).length);
+    }
+
+    @Test
+    void testDeserialize_ReadsLegacyJsonEntries() {
+        assertEquals(user, serializer.deserialize(json.serialize(user)));
+    }
+
+    @Test
+    void testSerialize_FallsBackToJsonForOtherTypes() {
+        Map<String, String> value = new HashMap<>(Map.of("key", "value"));
+
+        byte[] bytes = serializer.serialize(value);
+
+        assertEquals('{', bytes[0]);
+        assertEquals(value, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void testDeserialize_UnknownSchemaVersionIsTreatedAsMiss() {
+        byte[] bytes = serializer.serialize(user);
+        bytes[1] = (byte) (CompactBinaryRedisSerializer.SCHEMA_VERSION + 1);
+
+        assertNull(serializer.deserialize(bytes));
+    }
+
+    @Test
+    void testDeserialize_TruncatedEntryFailsAsSerializationException() {
+        byte[] bytes = serializer.serialize(user);
+
+        for (int length : new int[]{4, 22, bytes.length - 1}) {
+            byte[] truncated = Arrays.copyOf(bytes, length);
+            assertThrows(SerializationException.class, () -> serializer.deserialize(truncated));
+        }
+    }
+
+    @Test
+    void testJsonMode_StillReadsCompactEntries() {
+        CompactBinaryRedisSerializer jsonWriter = new CompactBinaryRedisSerializer(json, false);
+
+        assertEquals('{', jsonWriter.serialize(user)[0]);
+        assertEquals(user, jsonWriter.deserialize(serializer.serialize(user)));
+    }
+}
@@ -0,0 +1,34 @@
+package denis.userservice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JitteredTtlFunctionTest {
+
+    @Test
+    void testGetTimeToLive_StaysWithinJitterBounds() {
+        JitteredTtlFunction ttlFunction = new JitteredTtlFunction(Duration.ofHours(1), 0.1);
+        Set<Duration> distinct = new HashSet<>();
+
+        for (int i = 0; i < 1000; i++) {
+            Duration ttl = ttlFunction.getTimeToLive("key", "value");
+            assertTrue(ttl.compareTo(Duration.ofMinutes(54)) >= 0);
+            assertTrue(ttl.compareTo(Duration.ofMinutes(66)) <= 0);
+            distinct.add(ttl);
+        }
+        assertTrue(distinct.size() > 1);
+    }
+
+    @Test
+    void testGetTimeToLive_WithoutJitterReturnsBaseTtl() {
+        JitteredTtlFunction ttlFunction = new JitteredTtlFunction(Duration.ofMinutes(10), 0);
+
+        assertEquals(Duration.ofMinutes(10), ttlFunction.getTimeToLive("key", null));
+    }
+}
@@ -0,0 +1,40 @@
+package denis.userservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import denis.userservice.dto.request.UserRequestDto;
+import denis.userservice.dto.response.UserResponseDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class RedisConfigTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCacheSerializers_LeaveApplicationObjectMapperUntyped() throws Exception {
+        RedisConfig config = new RedisConfig(mock(ObjectProvider.class));
+        ObjectMapper objectMapper = config.redisObjectMapper();
+        RedisSerializer<Object> cacheSerializer = config.cacheValueSerializer(objectMapper);
+        config.redisTemplate(mock(RedisConnectionFactory.class), objectMapper);
+
+        UserRequestDto request = objectMapper.readValue(
+                "{\"name\":\"John\",\"surname\":\"Doe\",\"birthDate\":\"2000-12-26\",\"email\":\"john@example.com\"}",
+                UserRequestDto.class);
+        assertEquals("John", request.name());
+
+        UserResponseDto user = new UserResponseDto(UUID.randomUUID(), "John", "Doe",
+                LocalDate.of(2000, 12, 26), "john@example.com", true, 0, List.of());
+        assertFalse(objectMapper.writeValueAsString(user).contains("@class"));
+        assertTrue(new String(cacheSerializer.serialize(user)).contains("@class"));
+    }
+}
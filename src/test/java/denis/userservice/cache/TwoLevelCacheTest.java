@@ -0,0 +1,273 @@
+package denis.userservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.*;
+
+public class TwoLevelCacheTest {
+
+    @Mock
+    private Cache remoteCache;
+
+    @Mock
+    private CacheInvalidationPublisher invalidationPublisher;
+
+    @Mock
+    private EarlyRefresh earlyRefresh;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RedisCircuitBreaker circuitBreaker;
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        TwoLevelCache.NearCacheMetrics metrics = new TwoLevelCache.NearCacheMetrics(
+                meterRegistry.counter("l1.hit"),
+                meterRegistry.counter("l1.miss"),
+                meterRegistry.counter("l2.hit"),
+                meterRegistry.counter("l2.miss"),
+                meterRegistry.counter("coalesced"),
+                meterRegistry.counter("refreshes"),
+                meterRegistry.counter("evictions"),
+                meterRegistry.counter("remote.evictions"));
+        circuitBreaker = new RedisCircuitBreaker(redisTemplate, meterRegistry, 2);
+        cache = new TwoLevelCache("users",
+                Caffeine.newBuilder().maximumSize(100).<String, Cache.ValueWrapper>build(),
+                remoteCache,
+                invalidationPublisher,
+                metrics,
+                earlyRefresh,
+                circuitBreaker);
+        circuitBreaker.onRecovery(cache::replayPendingEvictions);
+        when(earlyRefresh.remoteExpiresAt(anyString(), any())).thenReturn(-1L);
+    }
+
+    @Test
+    void testGet_RemoteHitIsServedLocallyAfterwards() {
+        UUID id = UUID.randomUUID();
+        when(remoteCache.get(id)).thenReturn(new SimpleValueWrapper("value"));
+
+        assertEquals("value", cache.get(id).get());
+        assertEquals("value", cache.get(id).get());
+
+        verify(remoteCache, times(1)).get(id);
+        assertEquals(1, meterRegistry.counter("l1.hit").count());
+        assertEquals(1, meterRegistry.counter("l2.hit").count());
+    }
+
+    @Test
+    void testGet_MissOnBothLevels() {
+        UUID id = UUID.randomUUID();
+        when(remoteCache.get(id)).thenReturn(null);
+
+        assertNull(cache.get(id));
+        assertEquals(1, meterRegistry.counter("l2.miss").count());
+    }
+
+    @Test
+    void testGetWithLoader_UnreadableRemoteEntryIsEvictedAndReloaded() {
+        UUID id = UUID.randomUUID();
+        when(remoteCache.get(id)).thenThrow(new SerializationException("Corrupted compact cache entry"));
+
+        assertEquals("loaded", cache.get(id, () -> "loaded"));
+
+        verify(remoteCache, times(1)).evict(id);
+        verify(remoteCache, times(1)).put(id, "loaded");
+        assertEquals(RedisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void testGetWithLoader_LoadsOnceAndWritesBothLevels() {
+        UUID id = UUID.randomUUID();
+        when(remoteCache.get(id)).thenReturn(null);
+
+        assertEquals("loaded", cache.get(id, () -> "loaded"));
+        assertEquals("loaded", cache.get(id, () -> "other"));
+
+        verify(remoteCache, times(1)).put(id, "loaded");
+        verify(invalidationPublisher, never()).publishEvict(anyString(), anyString());
+    }
+
+    @Test
+    void testGetWithLoader_CoalescesConcurrentMisses() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(remoteCache.get(id)).thenReturn(null);
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> {
+            loads.incrementAndGet();
+            loaderStarted.countDown();
+            releaseLoader.await();
+            return "loaded";
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> cache.get(id, loader));
+            loaderStarted.await();
+            Future<String> second = executor.submit(() -> cache.get(id, loader));
+            while (meterRegistry.counter("coalesced").count() == 0) {
+                Thread.onSpinWait();
+            }
+            releaseLoader.countDown();
+
+            assertEquals("loaded", first.get(5, TimeUnit.SECONDS));
+            assertEquals("loaded", second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        verify(remoteCache, times(1)).put(id, "loaded");
+    }
+
+    @Test
+    void testGetWithLoader_RefreshesEntryCloseToExpiry() {
+        UUID id = UUID.randomUUID();
+        when(remoteCache.get(id)).thenReturn(new SimpleValueWrapper("stale"));
+        when(earlyRefresh.remoteExpiresAt("users", id)).thenReturn(42L);
+        when(earlyRefresh.shouldRefresh(42L)).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(earlyRefresh).execute(any());
+
+        assertEquals("stale", cache.get(id, () -> "fresh"));
+        assertEquals("fresh", cache.get(id, () -> "unused"));
+
+        verify(remoteCache, times(1)).put(id, "fresh");
+        assertEquals(1, meterRegistry.counter("refreshes").count());
+    }
+
+    @Test
+    void testPut_PublishesInvalidation() {
+        UUID id = UUID.randomUUID();
+
+        cache.put(id, "value");
+
+        verify(remoteCache, times(1)).put(id, "value");
+        verify(invalidationPublisher, times(1)).publishEvict("users", id.toString());
+        assertEquals("value", cache.get(id).get());
+    }
+
+    @Test
+    void testEvict_ClearsLocalEntryAndPublishesInvalidation() {
+        UUID id = UUID.randomUUID();
+        cache.put(id, "value");
+
+        cache.evict(id);
+
+        verify(remoteCache, times(1)).evict(id);
+        verify(invalidationPublisher, times(2)).publishEvict("users", id.toString());
+        when(remoteCache.get(id)).thenReturn(null);
+        assertNull(cache.get(id));
+        assertEquals(1, meterRegistry.counter("evictions").count());
+    }
+
+    @Test
+    void testEvictLocal_DropsOnlyLocalEntry() {
+        UUID id = UUID.randomUUID();
+        cache.put(id, "value");
+
+        cache.evictLocal(id.toString());
+
+        when(remoteCache.get(id)).thenReturn(new SimpleValueWrapper("remote"));
+        assertEquals("remote", cache.get(id).get());
+        verify(remoteCache, never()).evict(id);
+        assertEquals(1, meterRegistry.counter("remote.evictions").count());
+        assertEquals(0, meterRegistry.counter("evictions").count());
+    }
+
+    @Test
+    void testEvictAllLocal_QueuesKeysWhenRemoteDeleteFailed() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        cache.put(first, "first");
+        cache.put(second, "second");
+
+        cache.evictAllLocal(List.of(first, second), false);
+
+        assertNull(cache.getLocal(first.toString()));
+        assertNull(cache.getLocal(second.toString()));
+        assertEquals(2, meterRegistry.counter("evictions").count());
+        cache.replayPendingEvictions();
+        verify(remoteCache).evict(first);
+        verify(remoteCache).evict(second);
+    }
+
+    @Test
+    void testGetWithLoader_FallsBackToLoaderAndStopsCallingRedisOnceOpen() {
+        UUID id = UUID.randomUUID();
+        when(remoteCache.get(any())).thenThrow(new RedisConnectionFailureException("down"));
+        doThrow(new RedisConnectionFailureException("down")).when(remoteCache).put(any(), any());
+
+        assertEquals("db", cache.get(id, () -> "db"));
+        assertEquals("db", cache.get(UUID.randomUUID(), () -> "db"));
+
+        assertEquals(RedisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        verify(remoteCache, times(1)).get(any());
+        assertEquals(1, meterRegistry.get("cache.redis.breaker.state").gauge().value());
+        assertEquals("db", cache.get(id, () -> "unused"));
+    }
+
+    @Test
+    void testEvict_FailureBelowThresholdIsReplayedByTheNextProbe() {
+        UUID id = UUID.randomUUID();
+        doThrow(new RedisConnectionFailureException("blip")).doNothing().when(remoteCache).evict(id);
+
+        cache.evict(id);
+        cache.get(UUID.randomUUID());
+
+        assertEquals(RedisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        verify(remoteCache, times(1)).evict(id);
+
+        circuitBreaker.probe();
+        verify(remoteCache, times(2)).evict(id);
+        circuitBreaker.probe();
+        verify(remoteCache, times(2)).evict(id);
+    }
+
+    @Test
+    void testEvict_WhileOpenIsReplayedWhenRedisRecovers() {
+        UUID id = UUID.randomUUID();
+        doThrow(new RedisConnectionFailureException("down")).when(remoteCache).evict(any());
+        doThrow(new RedisConnectionFailureException("down")).when(invalidationPublisher)
+                .publishEvict(anyString(), anyString());
+
+        cache.evict(id);
+        assertEquals(RedisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        doNothing().when(remoteCache).evict(any());
+        circuitBreaker.probe();
+
+        assertEquals(RedisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        verify(remoteCache, times(2)).evict(id);
+    }
+}
@@ -8,8 +8,10 @@ import denis.userservice.dto.request.PaymentCardRequestDto;
 import denis.userservice.dto.response.PaymentCardResponseDto;
 import denis.userservice.entity.PaymentCard;
 import denis.userservice.entity.User;
+import denis.userservice.exception.CardListFullException;
 import denis.userservice.repository.PaymentCardRepository;
 import denis.userservice.repository.UserRepository;
+import denis.userservice.service.PaymentCardService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,6 +20,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -30,11 +33,19 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -64,6 +75,9 @@ public class PaymentCardControllerIntegrationTest {
     @Autowired
     private PaymentCardRepository cardRepository;
 
+    @Autowired
+    private PaymentCardService cardService;
+
     @Container
     static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:16.1")
             .withDatabaseName("testdb")
@@ -174,6 +188,26 @@ public class PaymentCardControllerIntegrationTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void importCardsNdjson_shouldReportPerRowResults() throws Exception {
+        User user = buildAndSaveUser("import@test.com");
+        buildAndSaveCard(user, "3000000000000001");
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 2; i <= 6; i++) {
+            ndjson.append(objectMapper.writeValueAsString(buildCardRequest(user.getId(), "300000000000000" + i)))
+                    .append('\n');
+        }
+
+        mockMvc.perform(post("/api/cards/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(5))
+                .andExpect(jsonPath("$.imported").value(4))
+                .andExpect(jsonPath("$.rows[4].error").value("Card list is full"));
+        assertThat(cardRepository.findAllCardsByUserId(user.getId())).hasSize(5);
+    }
+
     @Test
     void getCardById_shouldReturnCardAnd200() throws Exception {
         User user = buildAndSaveUser("getbyid@test.com");
@@ -210,6 +244,37 @@ public class PaymentCardControllerIntegrationTest {
                 .andReturn();
     }
 
+    @Test
+    void getAllCards_withoutTotal_shouldReturnSlice() throws Exception {
+        User user = buildAndSaveUser("slice@test.com");
+        buildAndSaveCard(user, "1000000000000001");
+        buildAndSaveCard(user, "1000000000000002");
+        buildAndSaveCard(user, "1000000000000003");
+        mockMvc.perform(get("/api/cards")
+                        .param("total", "none")
+                        .param("page", "0")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.last").value(false))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    void getAllCards_withApproximateTotal_shouldReturnPage() throws Exception {
+        User user = buildAndSaveUser("approx@test.com");
+        buildAndSaveCard(user, "1000000000000001");
+        buildAndSaveCard(user, "1000000000000002");
+        buildAndSaveCard(user, "1000000000000003");
+        mockMvc.perform(get("/api/cards")
+                        .param("total", "approximate")
+                        .param("page", "0")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.totalElements").value(greaterThanOrEqualTo(3)));
+    }
+
 
     @Test
     void getCardsByUserId_shouldReturnList() throws Exception {
@@ -228,6 +293,127 @@ public class PaymentCardControllerIntegrationTest {
         assertThat(userCards.stream().allMatch(card -> card.userId().equals(user.getId()))).isTrue();
     }
 
+    @Test
+    void getCardsByUserId_shouldListCardsInCreationOrderAfterUpdates() throws Exception {
+        User user = buildAndSaveUser("ordered@test.com");
+        PaymentCard first = buildAndSaveCard(user, "1111111111110001");
+        PaymentCard second = buildAndSaveCard(user, "1111111111110002");
+        PaymentCard third = buildAndSaveCard(user, "1111111111110003");
+        first.setHolder("MOVED HOLDER");
+        cardRepository.save(first);
+
+        mockMvc.perform(get("/api/cards/user-cards/{userId}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(first.getId().toString()))
+                .andExpect(jsonPath("$[1].id").value(second.getId().toString()))
+                .andExpect(jsonPath("$[2].id").value(third.getId().toString()));
+        mockMvc.perform(post("/api/users/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[\"" + user.getId() + "\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].paymentCards[0].id").value(first.getId().toString()))
+                .andExpect(jsonPath("$.users[0].paymentCards[2].id").value(third.getId().toString()));
+    }
+
+    @Test
+    void getUserById_shouldReflectCardWritesAfterCaching() throws Exception {
+        User user = buildAndSaveUser("embedded@test.com");
+        mockMvc.perform(get("/api/users/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paymentCards.length()").value(0));
+
+        mockMvc.perform(post("/api/cards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(buildCardRequest(user.getId(), "1111111111110001"))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/users/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paymentCards.length()").value(1))
+                .andExpect(jsonPath("$.paymentCards[0].number").value("1111111111110001"));
+    }
+
+    @Test
+    void getUserById_shouldChangeEtagWhenCardIsAdded() throws Exception {
+        User user = buildAndSaveUser("etag@test.com");
+        String etag = mockMvc.perform(get("/api/users/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(post("/api/cards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(buildCardRequest(user.getId(), "1111111111110002"))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/users/{id}", user.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paymentCards.length()").value(1));
+    }
+
+    @Test
+    void deleteUser_shouldReturn412WhenIfMatchPredatesACardChange() throws Exception {
+        User user = buildAndSaveUser("staleuser@test.com");
+        String etag = mockMvc.perform(get("/api/users/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(post("/api/cards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(buildCardRequest(user.getId(), "1111111111110004"))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(delete("/api/users/{id}", user.getId())
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isPreconditionFailed());
+        assertThat(userRepository.findById(user.getId())).isPresent();
+    }
+
+    @Test
+    void deactivateCard_shouldReturn412WhenIfMatchIsStale() throws Exception {
+        User user = buildAndSaveUser("stalecard@test.com");
+        PaymentCard savedCard = buildAndSaveCard(user, "5555666677770001");
+        String etag = mockMvc.perform(get("/api/cards/{id}", savedCard.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/cards/{id}", savedCard.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(patch("/api/cards/{id}/deactivate", savedCard.getId())
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(patch("/api/cards/{id}/activate", savedCard.getId())
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void getCardsByUserId_shouldReflectCardWritesAfterCaching() throws Exception {
+        User user = buildAndSaveUser("cachedlist@test.com");
+        PaymentCard card = buildAndSaveCard(user, "1111111111110001");
+        mockMvc.perform(get("/api/cards/user-cards/{userId}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+
+        mockMvc.perform(post("/api/cards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(buildCardRequest(user.getId(), "1111111111110002"))))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/cards/user-cards/{userId}", user.getId()))
+                .andExpect(jsonPath("$.length()").value(2));
+
+        mockMvc.perform(patch("/api/cards/{id}/deactivate", card.getId()))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/cards/user-cards/{userId}", user.getId()))
+                .andExpect(jsonPath("$[?(@.id == '" + card.getId() + "')].active").value(false));
+
+        mockMvc.perform(delete("/api/cards/{id}", card.getId()))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/cards/user-cards/{userId}", user.getId()))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
 
     @Test
     void updateCard_shouldUpdateCardAndReturn200() throws Exception {
@@ -279,4 +465,45 @@ public class PaymentCardControllerIntegrationTest {
                 .andExpect(status().isNoContent());
         assertThat(cardRepository.findById(cardToDelete.getId())).isNotPresent();
     }
-}
\ No newline at end of file
+
+    @Test
+    void createCard_concurrentCreatesForSameUserNeverExceedCardLimit() throws Exception {
+        List<User> users = List.of(buildAndSaveUser("race1@test.com"), buildAndSaveUser("race2@test.com"));
+        int attemptsPerUser = 24;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < attemptsPerUser; i++) {
+                for (int u = 0; u < users.size(); u++) {
+                    UUID userId = users.get(u).getId();
+                    String number = String.format("9%d%014d", u, i);
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        try {
+                            cardService.create(buildCardRequest(userId, number));
+                            created.incrementAndGet();
+                        } catch (CardListFullException ex) {
+                            rejected.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(created.get()).isEqualTo(5 * users.size());
+        assertThat(rejected.get()).isEqualTo((attemptsPerUser - 5) * users.size());
+        for (User user : users) {
+            assertThat(cardRepository.countByUserId(user.getId())).isEqualTo(5);
+        }
+    }
+}
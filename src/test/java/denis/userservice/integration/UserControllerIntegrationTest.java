@@ -3,9 +3,12 @@ package denis.userservice.integration;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import denis.userservice.dto.request.UserBatchRequestDto;
+import denis.userservice.dto.request.UserBulkStatusRequestDto;
 import denis.userservice.dto.request.UserRequestDto;
 import denis.userservice.dto.response.UserResponseDto;
 import denis.userservice.entity.User;
+import denis.userservice.monitoring.SqlStatementCounter;
 import denis.userservice.repository.UserRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,6 +16,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -24,10 +28,17 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
+import static denis.userservice.monitoring.SqlStatementAssertions.assertMaxStatements;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -44,6 +55,9 @@ public class UserControllerIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
     @Container
     static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:16.1")
             .withDatabaseName("testdb")
@@ -102,6 +116,17 @@ public class UserControllerIntegrationTest {
         assertThat(userRepository.findById(response.id())).isPresent();
     }
 
+    @Test
+    void createUser_shouldAcceptPlainJsonBodyAndAnswerWithoutTypeInfo() throws Exception {
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Plain\",\"surname\":\"Json\",\"birthDate\":\"2000-12-26\"," +
+                                "\"email\":\"plain.json@example.com\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.name").value("Plain"))
+                .andExpect(jsonPath("$['@class']").doesNotExist());
+    }
+
     @Test
     void createUser_shouldReturn400OnValidationFailure() throws Exception {
         UserRequestDto invalidDto = new UserRequestDto("J","Doe",LocalDate.of(2000,12,26),"validemail.com");
@@ -112,15 +137,40 @@ public class UserControllerIntegrationTest {
     }
 
     @Test
-    void getUserById_shouldReturnUserAnd200() throws Exception {
+    void getUserById_shouldReturnUserAnd200() throws Throwable {
         User savedUser = userRepository.save(buildUserEntity("Jane", "jane.doe@example.com", true));
 
-        mockMvc.perform(get("/api/users/{id}", savedUser.getId()))
+        assertMaxStatements(sqlStatementCounter, 2, () -> mockMvc.perform(get("/api/users/{id}", savedUser.getId())))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(savedUser.getId().toString()))
                 .andExpect(jsonPath("$.name").value("Jane"));
     }
 
+    @Test
+    void getUserByIdReactive_shouldReturnUserWithCardsAnd200() throws Exception {
+        User savedUser = userRepository.save(buildUserEntity("Jane", "jane.doe@example.com", true));
+
+        MvcResult result = mockMvc.perform(get("/api/reactive/users/{id}", savedUser.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(savedUser.getId().toString()))
+                .andExpect(jsonPath("$.name").value("Jane"))
+                .andExpect(jsonPath("$.paymentCards").isArray());
+    }
+
+    @Test
+    void getUserByIdReactive_shouldReturn404WhenMissing() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/reactive/users/{id}", UUID.randomUUID()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void getUserById_shouldReturn404ForNonExistingUser() throws Exception {
         UUID nonExistingId = UUID.randomUUID();
@@ -128,6 +178,39 @@ public class UserControllerIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getUsersByIds_shouldKeepRequestOrderAndReportMissing() throws Throwable {
+        User first = userRepository.save(buildUserEntity("First", "first@example.com", true));
+        User second = userRepository.save(buildUserEntity("Second", "second@example.com", true));
+        UUID nonExistingId = UUID.randomUUID();
+        UserBatchRequestDto requestDto = new UserBatchRequestDto(List.of(second.getId(), nonExistingId, first.getId()));
+
+        mockMvc.perform(get("/api/users/{id}", first.getId()))
+                .andExpect(status().isOk());
+
+        assertMaxStatements(sqlStatementCounter, 2, () -> mockMvc.perform(post("/api/users/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].id").value(second.getId().toString()))
+                .andExpect(jsonPath("$.users[1].id").value(first.getId().toString()))
+                .andExpect(jsonPath("$.missingIds[0]").value(nonExistingId.toString()));
+    }
+
+    @Test
+    void exportUsers_shouldStreamCsvRows() throws Exception {
+        User savedUser = userRepository.save(buildUserEntity("Export", "export@example.com", true));
+
+        MvcResult result = mockMvc.perform(get("/api/users/export").param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        savedUser.getId() + ",Export,EntitySurname,2000-12-26,export@example.com,true,,,,,")));
+    }
+
     @Test
     void updateUser_shouldUpdateUserAndReturn200() throws Exception {
         User savedUser = userRepository.save(buildUserEntity("OldName", "old@example.com", true));
@@ -141,6 +224,28 @@ public class UserControllerIntegrationTest {
 
         User updatedUser = userRepository.findById(savedUser.getId()).orElseThrow();
         assertThat(updatedUser.getName()).isEqualTo("NewName");
+        assertThat(updatedUser.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void updateUser_shouldReturn412WhenIfMatchIsStale() throws Exception {
+        User savedUser = userRepository.save(buildUserEntity("OldName", "stale@example.com", true));
+        UserRequestDto updateDto = new UserRequestDto("NewName", "NewSurname",LocalDate.of(2000,12,26),"stale@example.com");
+        String etag = mockMvc.perform(get("/api/users/{id}", savedUser.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(put("/api/users/{id}", savedUser.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+
+        mockMvc.perform(put("/api/users/{id}", savedUser.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateDto)))
+                .andExpect(status().isPreconditionFailed());
     }
 
     @Test
@@ -165,6 +270,53 @@ public class UserControllerIntegrationTest {
         assertThat(activatedUser.getActive()).isTrue();
     }
 
+    @Test
+    void batchDeactivate_shouldReportChangedRowsAndEvictCachedUsers() throws Exception {
+        User first = userRepository.save(buildUserEntity("BulkOne", "bulk1@example.com", true));
+        User second = userRepository.save(buildUserEntity("BulkTwo", "bulk2@example.com", false));
+        mockMvc.perform(get("/api/users/{id}", first.getId()))
+                .andExpect(jsonPath("$.active").value(true));
+
+        mockMvc.perform(patch("/api/users/batch-deactivate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserBulkStatusRequestDto(
+                                List.of(first.getId(), second.getId(), UUID.randomUUID()), null, null))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested").value(3))
+                .andExpect(jsonPath("$.changed").value(1));
+
+        mockMvc.perform(get("/api/users/{id}", first.getId()))
+                .andExpect(jsonPath("$.active").value(false))
+                .andExpect(jsonPath("$.version").value(1));
+    }
+
+    @Test
+    void batchDeactivate_shouldChangeUsersCreatedThroughTheApi() throws Exception {
+        UserRequestDto requestDto = new UserRequestDto("Created", "ViaApi", LocalDate.of(2000,12,26), "viaapi@example.com");
+        MvcResult created = mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        UUID id = objectMapper.readValue(created.getResponse().getContentAsString(), UserResponseDto.class).id();
+
+        mockMvc.perform(patch("/api/users/batch-deactivate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserBulkStatusRequestDto(List.of(id), null, null))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed").value(1));
+
+        assertThat(userRepository.findById(id).orElseThrow().getActive()).isFalse();
+    }
+
+    @Test
+    void batchActivate_shouldRequireEitherIdsOrFilter() throws Exception {
+        mockMvc.perform(patch("/api/users/batch-activate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[\"" + UUID.randomUUID() + "\"],\"surname\":\"Entity\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void deleteUser_shouldRemoveUserAndReturn204() throws Exception {
         User userToDelete = userRepository.save(buildUserEntity("DeleteMe", "delete@example.com", true));
@@ -175,6 +327,125 @@ public class UserControllerIntegrationTest {
         assertThat(userRepository.findById(userToDelete.getId())).isNotPresent();
     }
 
+    @Test
+    void deleteUser_shouldReturn412WhenIfMatchIsStale() throws Exception {
+        User userToDelete = userRepository.save(buildUserEntity("KeepMe", "keep@example.com", true));
+        String etag = mockMvc.perform(get("/api/users/{id}", userToDelete.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(patch("/api/users/{id}/deactivate", userToDelete.getId())
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(delete("/api/users/{id}", userToDelete.getId())
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isPreconditionFailed());
+
+        assertThat(userRepository.findById(userToDelete.getId())).isPresent();
+    }
+
+    @Test
+    void deleteUser_shouldReturn412WhenIfMatchIsSentForMissingUser() throws Exception {
+        UUID missingId = UUID.randomUUID();
+
+        mockMvc.perform(delete("/api/users/{id}", missingId)
+                        .header(HttpHeaders.IF_MATCH, "*"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/api/users/{id}/activate", missingId)
+                        .header(HttpHeaders.IF_MATCH, "\"0.1\""))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/api/users/{id}", missingId))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void deleteUser_shouldReturn400WhenIfMatchIsMalformed() throws Exception {
+        User userToDelete = userRepository.save(buildUserEntity("Malformed", "malformed@example.com", true));
+
+        mockMvc.perform(delete("/api/users/{id}", userToDelete.getId())
+                        .header(HttpHeaders.IF_MATCH, "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/api/users/{id}", userToDelete.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"abc\""))
+                .andExpect(status().isBadRequest());
+
+        assertThat(userRepository.findById(userToDelete.getId())).isPresent();
+    }
+
+    @Test
+    void getUserById_shouldReturn304WhenIfNoneMatchIsCurrent() throws Throwable {
+        User user = userRepository.save(buildUserEntity("Tagged", "tagged@example.com", true));
+        String etag = mockMvc.perform(get("/api/users/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertMaxStatements(sqlStatementCounter, 0, () -> mockMvc.perform(get("/api/users/{id}", user.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(patch("/api/users/{id}/deactivate", user.getId()))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/users/{id}", user.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    void getUserById_shouldReturn404AfterDeleteEvenWhenPreviouslyCached() throws Exception {
+        User user = userRepository.save(buildUserEntity("Cached", "cached@example.com", true));
+        mockMvc.perform(get("/api/users/{id}", user.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/users/{id}", user.getId()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/users/{id}", user.getId()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/users/{id}", user.getId()))
+                .andExpect(status().isNotFound());
+    }
+
+
+    @Test
+    void getAllUsersByCursor_shouldWalkAllPages() throws Exception {
+        userRepository.save(buildUserEntity("First", "first@e.com", true));
+        userRepository.save(buildUserEntity("Second", "second@e.com", true));
+        userRepository.save(buildUserEntity("Third", "third@e.com", true));
+
+        MvcResult firstPage = mockMvc.perform(get("/api/users")
+                        .param("cursor", "")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn();
+        String nextCursor = objectMapper.readTree(firstPage.getResponse().getContentAsString())
+                .get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/users")
+                        .param("cursor", nextCursor)
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void getAllUsers_shouldFilterBySurnameSubstring() throws Exception {
+        User match = buildUserEntity("Alice", "a@e.com", true);
+        match.setSurname("McDonald");
+        userRepository.save(match);
+        userRepository.save(buildUserEntity("Donald", "b@e.com", true));
+
+        mockMvc.perform(get("/api/users")
+                        .param("surname", "dona"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].name").value("Alice"));
+    }
 
     @Test
     void getAllUsers_shouldReturnFilteredAndPagedUsers() throws Exception {
@@ -0,0 +1,49 @@
+package denis.userservice.monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SlowQueryLogTest {
+
+    @Test
+    void testAfterQuery_SamplesOnlySlowStatementsWithTheirParameterShape() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SlowQueryLog slowQueryLog = new SlowQueryLog(meterRegistry, Duration.ofMillis(100), 2);
+        QueryInfo query = new QueryInfo("SELECT * FROM users WHERE id = ? AND name LIKE ? AND email = ?");
+        query.getParametersList().add(List.of(
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setString", int.class, String.class),
+                        new Object[]{2, "%secret%"}),
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setNull", int.class, int.class),
+                        new Object[]{3, 12}),
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setObject", int.class, Object.class),
+                        new Object[]{1, UUID.randomUUID()})));
+
+        slowQueryLog.afterQuery(execution(5), List.of(query));
+        slowQueryLog.afterQuery(execution(150), List.of(query));
+        slowQueryLog.afterQuery(execution(200), List.of(query));
+        slowQueryLog.afterQuery(execution(250), List.of(query));
+
+        List<SlowQueryLog.SlowQuery> samples = slowQueryLog.getSamples();
+        assertEquals(2, samples.size());
+        assertEquals(200, samples.get(0).elapsedMillis());
+        assertEquals(List.of("UUID", "String", "null"), samples.get(1).parameterTypes());
+        assertEquals(3, meterRegistry.get("db.statements.slow").counter().count());
+    }
+
+    private static ExecutionInfo execution(long elapsedMillis) {
+        ExecutionInfo execution = new ExecutionInfo();
+        execution.setElapsedTime(elapsedMillis);
+        execution.setSuccess(true);
+        return execution;
+    }
+}
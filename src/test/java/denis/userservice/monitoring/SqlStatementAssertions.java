@@ -0,0 +1,27 @@
+package denis.userservice.monitoring;
+
+import org.junit.jupiter.api.function.ThrowingSupplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+public final class SqlStatementAssertions {
+
+    private SqlStatementAssertions() {
+    }
+
+    public static <T> T assertMaxStatements(SqlStatementCounter counter, int maxStatements, ThrowingSupplier<T> action)
+            throws Throwable {
+        T result;
+        SqlStatementCounter.Scope scope = counter.open(true);
+        try {
+            result = action.get();
+        } finally {
+            scope.close();
+        }
+        if (scope.getStatements() > maxStatements) {
+            fail("Expected at most " + maxStatements + " SQL statements but " + scope.getStatements()
+                    + " were executed:\n  " + String.join("\n  ", scope.getSql()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,85 @@
+package denis.userservice.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SqlStatementMetricsFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SqlStatementCounter counter;
+    private SqlStatementMetricsFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        counter = new SqlStatementCounter();
+        filter = new SqlStatementMetricsFilter(counter, meterRegistry, 2, Duration.ofSeconds(1));
+    }
+
+    @Test
+    void testFilter_RecordsStatementsExecutedByTheRequestThread() throws Exception {
+        execute("SELECT 1");
+        perform(3);
+        execute("SELECT 1");
+
+        DistributionSummary summary = meterRegistry.get("http.server.requests.sql.statements")
+                .tag("method", "GET")
+                .tag("uri", "/api/users/{id}")
+                .summary();
+        assertEquals(1, summary.count());
+        assertEquals(3, summary.totalAmount());
+        assertEquals(1, meterRegistry.get("http.server.requests.sql.budget.exceeded").counter().count());
+    }
+
+    @Test
+    void testFilter_WithinBudgetIsNotFlagged() throws Exception {
+        perform(2);
+
+        assertTrue(meterRegistry.find("http.server.requests.sql.budget.exceeded").counters().isEmpty());
+    }
+
+    @Test
+    void testAssertMaxStatements_SeesStatementsOfNestedRequestScopes() throws Throwable {
+        assertEquals(2, SqlStatementAssertions.assertMaxStatements(counter, 2, () -> {
+            perform(2);
+            return 2;
+        }));
+
+        AssertionError error = assertThrows(AssertionError.class,
+                () -> SqlStatementAssertions.assertMaxStatements(counter, 2, () -> {
+                    perform(3);
+                    return null;
+                }));
+        assertTrue(error.getMessage().contains("SELECT 1"));
+    }
+
+    private void perform(int statements) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/users/{id}");
+            for (int i = 0; i < statements; i++) {
+                execute("SELECT 1");
+            }
+        });
+    }
+
+    private void execute(String sql) {
+        QueryInfo query = new QueryInfo(sql);
+        counter.beforeQuery(new ExecutionInfo(), List.of(query));
+        counter.afterQuery(new ExecutionInfo(), List.of(query));
+    }
+}
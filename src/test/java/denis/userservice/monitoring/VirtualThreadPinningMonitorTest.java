@@ -0,0 +1,23 @@
+package denis.userservice.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class VirtualThreadPinningMonitorTest {
+
+    @Test
+    void testClassify_AttributesPinningToTheClientLibrary() {
+        assertEquals("jdbc", VirtualThreadPinningMonitor.classify(List.of(
+                "java.lang.Object.wait0",
+                "org.postgresql.core.v3.QueryExecutorImpl.execute",
+                "denis.userservice.service.Impl.UserServiceImpl.getById")));
+        assertEquals("redis", VirtualThreadPinningMonitor.classify(List.of(
+                "java.util.concurrent.locks.LockSupport.park",
+                "org.apache.commons.pool2.impl.GenericObjectPool.borrowObject")));
+        assertEquals("other", VirtualThreadPinningMonitor.classify(List.of(
+                "denis.userservice.cache.TwoLevelCache.get")));
+    }
+}
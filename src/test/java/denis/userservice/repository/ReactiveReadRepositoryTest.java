@@ -0,0 +1,27 @@
+package denis.userservice.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ReactiveReadRepositoryTest {
+
+    @Test
+    void testToR2dbcUrl_ReusesJdbcHostAndDatabase() {
+        assertEquals("r2dbc:postgresql://postgres:5432/user_service",
+                ReactiveReadRepository.toR2dbcUrl("jdbc:postgresql://postgres:5432/user_service"));
+        assertEquals("r2dbc:postgresql://localhost:49153/testdb",
+                ReactiveReadRepository.toR2dbcUrl("jdbc:postgresql://localhost:49153/testdb?loggerLevel=OFF"));
+    }
+
+    @Test
+    void testOrderBy_MapsWhitelistedPropertiesAndAddsTieBreaker() {
+        assertEquals(" ORDER BY id", ReactiveReadRepository.orderBy(Sort.unsorted()));
+        assertEquals(" ORDER BY birth_date DESC, name ASC, id",
+                ReactiveReadRepository.orderBy(Sort.by(Sort.Order.desc("birthDate"), Sort.Order.asc("name"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> ReactiveReadRepository.orderBy(Sort.by("name; DROP TABLE users")));
+    }
+}
@@ -0,0 +1,92 @@
+package denis.userservice.repository;
+
+import denis.userservice.entity.PaymentCard;
+import denis.userservice.entity.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers
+public class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PaymentCardRepository cardRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Container
+    static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:16.1")
+            .withDatabaseName("testdb")
+            .withUsername("testuser")
+            .withPassword("testpass");
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+    }
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 60; i++) {
+            User user = userRepository.save(User.builder()
+                    .name("User" + i)
+                    .surname("Surname" + i)
+                    .email("user" + i + "@test.com")
+                    .birthDate(LocalDate.of(1990, 1, 1))
+                    .active(true)
+                    .build());
+            for (int j = 0; j < 2; j++) {
+                cardRepository.save(PaymentCard.builder()
+                        .user(user)
+                        .number("10000000000000" + i % 10 + j)
+                        .holder("HOLDER")
+                        .expirationDate(LocalDate.now().plusYears(1))
+                        .active(true)
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findAll_shouldLoadCardsForWholePageInOneQuery() {
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        Page<User> page = userRepository.findAll(Specification.unrestricted(), PageRequest.of(0, 50));
+        page.forEach(user -> assertThat(user.getPaymentCards()).hasSize(2));
+
+        assertThat(page.getContent()).hasSize(50);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+}
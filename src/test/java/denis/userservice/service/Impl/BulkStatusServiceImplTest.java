@@ -0,0 +1,90 @@
+package denis.userservice.service.Impl;
+
+import denis.userservice.cache.BatchCacheOperations;
+import denis.userservice.dto.request.CardBulkStatusRequestDto;
+import denis.userservice.dto.request.UserBulkStatusRequestDto;
+import denis.userservice.dto.response.BulkStatusReportDto;
+import denis.userservice.repository.BulkStatusRepository;
+import denis.userservice.repository.CardStatusChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class BulkStatusServiceImplTest {
+
+    @Mock
+    private BulkStatusRepository bulkStatusRepository;
+
+    @Mock
+    private BatchCacheOperations batchCacheOperations;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BulkStatusServiceImpl bulkStatusService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        bulkStatusService = new BulkStatusServiceImpl(bulkStatusRepository, batchCacheOperations,
+                new TransactionTemplate(transactionManager), 2);
+    }
+
+    @Test
+    void testUpdateUsers_ChunksIdsAndEvictsOnlyChangedRows() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        when(bulkStatusRepository.updateUserStatus(List.of(first, second), false)).thenReturn(List.of(first));
+        when(bulkStatusRepository.updateUserStatus(List.of(third), false)).thenReturn(List.of(third));
+
+        BulkStatusReportDto report = bulkStatusService.updateUsers(
+                new UserBulkStatusRequestDto(List.of(first, second, first, third), null, null), false);
+
+        assertEquals(new BulkStatusReportDto(3, 2), report);
+        verify(bulkStatusRepository, times(2)).updateUserStatus(anyList(), eq(false));
+        verify(batchCacheOperations).evictAll("users", List.of(first));
+        verify(batchCacheOperations).evictAll("users", List.of(third));
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void testUpdateUsers_ResolvesFilterBeforeUpdating() {
+        UUID id = UUID.randomUUID();
+        when(bulkStatusRepository.findUserIds("smith", null)).thenReturn(List.of(id));
+        when(bulkStatusRepository.updateUserStatus(List.of(id), true)).thenReturn(List.of());
+
+        BulkStatusReportDto report = bulkStatusService.updateUsers(
+                new UserBulkStatusRequestDto(null, "smith", null), true);
+
+        assertEquals(new BulkStatusReportDto(1, 0), report);
+        verify(batchCacheOperations).evictAll("users", List.of());
+    }
+
+    @Test
+    void testUpdateCards_EvictsCardsAndOwnerLists() {
+        UUID owner = UUID.randomUUID();
+        UUID firstCard = UUID.randomUUID();
+        UUID secondCard = UUID.randomUUID();
+        when(bulkStatusRepository.findCardIdsByUserIds(List.of(owner))).thenReturn(List.of(firstCard, secondCard));
+        when(bulkStatusRepository.updateCardStatus(List.of(firstCard, secondCard), false)).thenReturn(List.of(
+                new CardStatusChange(firstCard, owner), new CardStatusChange(secondCard, owner)));
+
+        BulkStatusReportDto report = bulkStatusService.updateCards(
+                new CardBulkStatusRequestDto(null, List.of(owner, owner)), false);
+
+        assertEquals(new BulkStatusReportDto(2, 2), report);
+        verify(batchCacheOperations).evictAll("cards", List.of(firstCard, secondCard));
+        verify(batchCacheOperations).evictAll("userCards", Set.of(owner));
+    }
+}
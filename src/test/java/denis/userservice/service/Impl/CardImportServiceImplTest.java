@@ -0,0 +1,171 @@
+package denis.userservice.service.Impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import denis.userservice.dto.request.PaymentCardRequestDto;
+import denis.userservice.dto.response.CardImportReportDto;
+import denis.userservice.entity.PaymentCard;
+import denis.userservice.entity.User;
+import denis.userservice.mapper.PaymentCardMapper;
+import denis.userservice.repository.PaymentCardRepository;
+import denis.userservice.repository.UserCardCount;
+import denis.userservice.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class CardImportServiceImplTest {
+
+    @Mock
+    private PaymentCardRepository cardRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PaymentCardMapper cardMapper;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache userCardsCache;
+
+    private CardImportServiceImpl importService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(cacheManager.getCache("userCards")).thenReturn(userCardsCache);
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        importService = new CardImportServiceImpl(cardRepository, userRepository, cardMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(), objectMapper,
+                new TransactionTemplate(transactionManager), entityManager, cacheManager, 2);
+
+        user = new User();
+        user.setId(UUID.randomUUID());
+
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        when(cardMapper.toEntity(any(PaymentCardRequestDto.class))).thenAnswer(invocation -> new PaymentCard());
+        when(cardRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<PaymentCard> cards = invocation.getArgument(0);
+            cards.forEach(card -> card.setId(UUID.randomUUID()));
+            return cards;
+        });
+    }
+
+    private PaymentCardRequestDto cardRequest(UUID userId, String number) {
+        return new PaymentCardRequestDto(userId, number, "HOLDER", LocalDate.now().plusYears(1));
+    }
+
+    private UserCardCount cardCount(UUID userId, long count) {
+        return new UserCardCount() {
+            @Override
+            public UUID getUserId() {
+                return userId;
+            }
+
+            @Override
+            public long getCardCount() {
+                return count;
+            }
+        };
+    }
+
+    @Test
+    void testImportCards_EnforcesCardLimitAcrossChunks() {
+        when(userRepository.lockExistingIds(Set.of(user.getId()))).thenReturn(List.of(user.getId()));
+        when(cardRepository.countByUserIds(Set.of(user.getId())))
+                .thenReturn(List.of(cardCount(user.getId(), 3)))
+                .thenReturn(List.of(cardCount(user.getId(), 5)));
+
+        CardImportReportDto report = importService.importCards(List.of(
+                cardRequest(user.getId(), "1111222233334444"),
+                cardRequest(user.getId(), "1111222233334445"),
+                cardRequest(user.getId(), "1111222233334446")));
+
+        assertEquals(3, report.total());
+        assertEquals(2, report.imported());
+        assertEquals(1, report.failed());
+        assertFalse(report.rows().get(2).success());
+        assertEquals("Card list is full", report.rows().get(2).error());
+        verify(cardRepository, times(2)).countByUserIds(anySet());
+        verify(entityManager, times(2)).clear();
+        verify(userCardsCache, times(1)).evict(user.getId());
+    }
+
+    @Test
+    void testImportCards_ReportsValidationAndMissingUsers() {
+        UUID unknownUserId = UUID.randomUUID();
+        when(userRepository.lockExistingIds(Set.of(unknownUserId))).thenReturn(List.of());
+
+        CardImportReportDto report = importService.importCards(List.of(
+                cardRequest(user.getId(), "123"),
+                cardRequest(unknownUserId, "1111222233334444")));
+
+        assertEquals(0, report.imported());
+        assertEquals("Card number must be 16 digits", report.rows().get(0).error());
+        assertEquals("User not found", report.rows().get(1).error());
+    }
+
+    @Test
+    void testImportNdjson_ReportsMalformedLines() {
+        when(userRepository.lockExistingIds(Set.of(user.getId()))).thenReturn(List.of(user.getId()));
+        when(cardRepository.countByUserIds(Set.of(user.getId()))).thenReturn(List.of());
+        String ndjson = "{\"userId\":\"" + user.getId() + "\",\"number\":\"1111222233334444\","
+                + "\"holder\":\"HOLDER\",\"expirationDate\":\"" + LocalDate.now().plusYears(1) + "\"}\n"
+                + "\n"
+                + "{not json}\n";
+
+        CardImportReportDto report = importService.importNdjson(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, report.total());
+        assertTrue(report.rows().get(0).success());
+        assertEquals(3, report.rows().get(1).row());
+        assertFalse(report.rows().get(1).success());
+    }
+
+    @Test
+    void testImportCards_FailedChunkMarksAllRowsFailed() {
+        when(userRepository.lockExistingIds(Set.of(user.getId()))).thenReturn(List.of(user.getId()));
+        when(cardRepository.countByUserIds(Set.of(user.getId()))).thenReturn(List.of());
+        doThrow(new IllegalStateException("boom")).when(cardRepository).flush();
+
+        CardImportReportDto report = importService.importCards(List.of(
+                cardRequest(user.getId(), "1111222233334444"),
+                cardRequest(user.getId(), "1111222233334445")));
+
+        assertEquals(2, report.failed());
+        assertEquals("Chunk failed", report.rows().get(0).error());
+        verify(entityManager, never()).clear();
+        verify(userCardsCache, never()).evict(any());
+    }
+}
@@ -1,28 +1,42 @@
 package denis.userservice.service.Impl;
 
+import denis.userservice.cache.BatchCacheOperations;
+import denis.userservice.cache.MissingKeyCache;
 import denis.userservice.dto.request.PaymentCardRequestDto;
+import denis.userservice.dto.response.CursorPageDto;
 import denis.userservice.dto.response.PaymentCardResponseDto;
 import denis.userservice.entity.PaymentCard;
 import denis.userservice.entity.User;
 import denis.userservice.exception.CardListFullException;
 import denis.userservice.exception.CardNotFoundException;
 import denis.userservice.exception.UserNotFoundException;
+import denis.userservice.exception.VersionConflictException;
 import denis.userservice.mapper.PaymentCardMapper;
+import denis.userservice.pagination.KeysetCursor;
 import denis.userservice.repository.PaymentCardRepository;
 import denis.userservice.repository.UserRepository;
+import denis.userservice.repository.VersionedUpdateRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -44,6 +58,21 @@ public class PaymentCardServiceImplTest {
     @Mock
     private PaymentCardMapper cardMapper;
 
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache userCardsCache;
+
+    @Mock
+    private BatchCacheOperations batchCacheOperations;
+
+    @Mock
+    private MissingKeyCache missingKeyCache;
+
+    @Mock
+    private VersionedUpdateRepository versionedUpdateRepository;
+
     private User user;
     private PaymentCard card;
     private PaymentCardRequestDto requestDto;
@@ -52,6 +81,7 @@ public class PaymentCardServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(cacheManager.getCache("userCards")).thenReturn(userCardsCache);
 
         user = new User();
         user.setId(UUID.randomUUID());
@@ -67,12 +97,14 @@ public class PaymentCardServiceImplTest {
         card.setExpirationDate(LocalDate.of(2030, 12, 31));
 
         requestDto = new PaymentCardRequestDto(user.getId(), "1234 5678 9012 3456", "John Doe", LocalDate.of(2030, 12, 31));
-        responseDto = new PaymentCardResponseDto(card.getId(), user.getId(), card.getNumber(), card.getHolder(), card.getExpirationDate(),true);
+        responseDto = new PaymentCardResponseDto(card.getId(), user.getId(), card.getNumber(), card.getHolder(), card.getExpirationDate(),true, 0);
     }
 
     @Test
     void testCreate_Success() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userRepository.lockById(user.getId())).thenReturn(Optional.of(user.getId()));
+        when(cardRepository.countByUserId(user.getId())).thenReturn(4L);
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
         when(cardMapper.toEntity(requestDto)).thenReturn(card);
         when(cardRepository.save(card)).thenReturn(card);
         when(cardMapper.toResponseDto(card)).thenReturn(responseDto);
@@ -81,25 +113,27 @@ public class PaymentCardServiceImplTest {
 
         assertEquals(responseDto, result);
         verify(cardRepository, times(1)).save(card);
+        verify(missingKeyCache, times(1)).clear(MissingKeyCache.CARDS, card.getId());
+        verify(userRepository, never()).findById(any());
     }
 
     @Test
     void testCreate_UserNotFound() {
         when(cardMapper.toEntity(requestDto)).thenReturn(card);
-        when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
+        when(userRepository.lockById(user.getId())).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class, () -> cardService.create(requestDto));
+        verify(cardRepository, never()).countByUserId(any());
     }
 
     @Test
     void testCreate_CardListFull() {
-        for (int i = 0; i < 5; i++) {
-            user.getPaymentCards().add(new PaymentCard());
-        }
         when(cardMapper.toEntity(requestDto)).thenReturn(card);
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userRepository.lockById(user.getId())).thenReturn(Optional.of(user.getId()));
+        when(cardRepository.countByUserId(user.getId())).thenReturn(5L);
 
         assertThrows(CardListFullException.class, () -> cardService.create(requestDto));
+        verify(cardRepository, never()).save(any());
     }
 
     @Test
@@ -118,6 +152,16 @@ public class PaymentCardServiceImplTest {
         when(cardRepository.findById(id)).thenReturn(Optional.empty());
 
         assertThrows(CardNotFoundException.class, () -> cardService.getById(id));
+        verify(missingKeyCache, times(1)).markMissing(MissingKeyCache.CARDS, id);
+    }
+
+    @Test
+    void testGetById_KnownMissingSkipsDatabase() {
+        UUID id = UUID.randomUUID();
+        when(missingKeyCache.isMissing(MissingKeyCache.CARDS, id)).thenReturn(true);
+
+        assertThrows(CardNotFoundException.class, () -> cardService.getById(id));
+        verify(cardRepository, never()).findById(id);
     }
 
     @Test
@@ -135,8 +179,8 @@ public class PaymentCardServiceImplTest {
         Page<PaymentCard> page = new PageImpl<>(cards, pageable, cards.size());
 
         when(cardRepository.findAll(pageable)).thenReturn(page);
-        when(cardMapper.toResponseDto(card1)).thenReturn(new PaymentCardResponseDto(card1.getId(), user.getId(), card1.getNumber(), null, null, true));
-        when(cardMapper.toResponseDto(card2)).thenReturn(new PaymentCardResponseDto(card2.getId(),user.getId(), card2.getNumber(), null, null, true));
+        when(cardMapper.toResponseDto(card1)).thenReturn(new PaymentCardResponseDto(card1.getId(), user.getId(), card1.getNumber(), null, null, true, 0));
+        when(cardMapper.toResponseDto(card2)).thenReturn(new PaymentCardResponseDto(card2.getId(),user.getId(), card2.getNumber(), null, null, true, 0));
 
         Page<PaymentCardResponseDto> result = cardService.getAll(pageable);
 
@@ -145,6 +189,72 @@ public class PaymentCardServiceImplTest {
         assertEquals("5555 6666 7777 8888", result.getContent().get(1).number());
     }
 
+    @Test
+    void testGetAllByCursor_SeeksAfterCursor() {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2024, 1, 1, 10, 0), UUID.randomUUID());
+        card.setCreatedAt(LocalDateTime.of(2024, 1, 2, 10, 0));
+        when(cardRepository.findAfterKeyset(cursor.createdAt(), cursor.id(), 11)).thenReturn(List.of(card));
+        when(cardMapper.toResponseDto(card)).thenReturn(responseDto);
+
+        CursorPageDto<PaymentCardResponseDto> result = cardService.getAllByCursor(cursor.encode(), 10);
+
+        assertEquals(List.of(responseDto), result.content());
+        assertEquals(false, result.hasNext());
+        verify(cardRepository, never()).findFirstByKeyset(anyInt());
+    }
+
+    @Test
+    void testGetAllByCursor_FirstPage() {
+        card.setCreatedAt(LocalDateTime.of(2024, 1, 2, 10, 0));
+        PaymentCard next = new PaymentCard();
+        when(cardRepository.findFirstByKeyset(2)).thenReturn(List.of(card, next));
+        when(cardMapper.toResponseDto(card)).thenReturn(responseDto);
+
+        CursorPageDto<PaymentCardResponseDto> result = cardService.getAllByCursor("", 1);
+
+        assertEquals(true, result.hasNext());
+        assertEquals(new KeysetCursor(card.getCreatedAt(), card.getId()), KeysetCursor.decode(result.nextCursor()));
+    }
+
+    @Test
+    void testGetSlice_DoesNotCount() {
+        Pageable pageable = PageRequest.of(0, 1);
+        when(cardRepository.findAllBy(pageable)).thenReturn(new SliceImpl<>(List.of(card), pageable, true));
+        when(cardMapper.toResponseDto(card)).thenReturn(responseDto);
+
+        Slice<PaymentCardResponseDto> result = cardService.getSlice(pageable);
+
+        assertEquals(List.of(responseDto), result.getContent());
+        assertEquals(true, result.hasNext());
+        verify(cardRepository, never()).count();
+    }
+
+    @Test
+    void testGetAllWithApproximateTotal_UsesEstimate() {
+        Pageable pageable = PageRequest.of(0, 1);
+        when(cardRepository.findAllBy(pageable)).thenReturn(new SliceImpl<>(List.of(card), pageable, true));
+        when(cardMapper.toResponseDto(card)).thenReturn(responseDto);
+        when(cardRepository.estimateCount()).thenReturn(1000L);
+
+        Page<PaymentCardResponseDto> result = cardService.getAllWithApproximateTotal(pageable);
+
+        assertEquals(1000L, result.getTotalElements());
+        verify(cardRepository, never()).count();
+    }
+
+    @Test
+    void testGetAllWithApproximateTotal_FallsBackToCountWhenNotAnalyzed() {
+        Pageable pageable = PageRequest.of(0, 1);
+        when(cardRepository.findAllBy(pageable)).thenReturn(new SliceImpl<>(List.of(card), pageable, true));
+        when(cardMapper.toResponseDto(card)).thenReturn(responseDto);
+        when(cardRepository.estimateCount()).thenReturn(-1L);
+        when(cardRepository.count()).thenReturn(7L);
+
+        Page<PaymentCardResponseDto> result = cardService.getAllWithApproximateTotal(pageable);
+
+        assertEquals(7L, result.getTotalElements());
+    }
+
     @Test
     void testGetByUserId() {
         UUID userId = UUID.randomUUID();
@@ -160,8 +270,8 @@ public class PaymentCardServiceImplTest {
         List<PaymentCard> cards = List.of(card1, card2);
 
         when(cardRepository.findAllCardsByUserId(userId)).thenReturn(cards);
-        when(cardMapper.toResponseDto(card1)).thenReturn(new PaymentCardResponseDto(card1.getId(),userId, card1.getNumber(), null, null, true));
-        when(cardMapper.toResponseDto(card2)).thenReturn(new PaymentCardResponseDto(card2.getId(),userId, card2.getNumber(), null, null, true));
+        when(cardMapper.toResponseDto(card1)).thenReturn(new PaymentCardResponseDto(card1.getId(),userId, card1.getNumber(), null, null, true, 0));
+        when(cardMapper.toResponseDto(card2)).thenReturn(new PaymentCardResponseDto(card2.getId(),userId, card2.getNumber(), null, null, true, 0));
 
         List<PaymentCardResponseDto> result = cardService.getByUserId(userId);
 
@@ -170,37 +280,119 @@ public class PaymentCardServiceImplTest {
         assertEquals(userId, result.getFirst().userId());
     }
 
+    @Test
+    void testGetByUserIds_LoadsMissesInOneQuery() {
+        UUID cachedUserId = UUID.randomUUID();
+        UUID emptyUserId = UUID.randomUUID();
+        List<UUID> userIds = List.of(user.getId(), cachedUserId, emptyUserId);
+        when(batchCacheOperations.getAll("userCards", userIds, List.class))
+                .thenReturn(Map.of(cachedUserId, List.of()));
+        when(cardRepository.findAllByUserIdIn(List.of(user.getId(), emptyUserId))).thenReturn(List.of(card));
+        when(cardMapper.toResponseDto(card)).thenReturn(responseDto);
+
+        Map<UUID, List<PaymentCardResponseDto>> result = cardService.getByUserIds(userIds);
+
+        assertEquals(List.of(responseDto), result.get(user.getId()));
+        assertEquals(List.of(), result.get(cachedUserId));
+        assertEquals(List.of(), result.get(emptyUserId));
+        verify(batchCacheOperations, times(1)).putAllIfAbsent("userCards",
+                Map.of(user.getId(), List.of(responseDto), emptyUserId, List.of()));
+    }
+
     @Test
     void testUpdate_Success() {
-        when(cardRepository.findById(card.getId())).thenReturn(Optional.of(card));
-        when(cardRepository.save(any(PaymentCard.class))).thenReturn(card);
-        when(cardMapper.toResponseDto(any(PaymentCard.class))).thenReturn(responseDto);
+        when(versionedUpdateRepository.updateCard(card.getId(), requestDto, null)).thenReturn(Optional.of(responseDto));
 
-        PaymentCardResponseDto result = cardService.update(card.getId(), requestDto);
+        PaymentCardResponseDto result = cardService.update(card.getId(), requestDto, null);
 
         assertEquals(responseDto, result);
-        verify(cardRepository, times(1)).save(any(PaymentCard.class));
+        verify(cardRepository, never()).findById(any());
+        verify(cardRepository, never()).save(any(PaymentCard.class));
+    }
+
+    @Test
+    void testUpdate_StaleVersion() {
+        when(versionedUpdateRepository.updateCard(card.getId(), requestDto, 2L)).thenReturn(Optional.empty());
+        when(cardRepository.existsById(card.getId())).thenReturn(true);
+
+        assertThrows(VersionConflictException.class, () -> cardService.update(card.getId(), requestDto, 2L));
+    }
+
+    @Test
+    void testUpdate_CardNotFound() {
+        when(versionedUpdateRepository.updateCard(card.getId(), requestDto, null)).thenReturn(Optional.empty());
+        when(cardRepository.existsById(card.getId())).thenReturn(false);
+
+        assertThrows(CardNotFoundException.class, () -> cardService.update(card.getId(), requestDto, null));
     }
 
     @Test
     void testActivateAndDeactivate() {
-        doNothing().when(cardRepository).activate(card.getId());
-        doNothing().when(cardRepository).deactivate(card.getId());
+        when(cardRepository.activate(card.getId(), null)).thenReturn(1);
+        when(cardRepository.deactivate(card.getId(), null)).thenReturn(1);
 
-        cardService.activate(card.getId());
-        cardService.deactivate(card.getId());
+        cardService.activate(card.getId(), null);
+        cardService.deactivate(card.getId(), null);
 
-        verify(cardRepository, times(1)).activate(card.getId());
-        verify(cardRepository, times(1)).deactivate(card.getId());
+        verify(cardRepository, times(1)).activate(card.getId(), null);
+        verify(cardRepository, times(1)).deactivate(card.getId(), null);
+    }
+
+    @Test
+    void testActivate_EvictsOwnerCardList() {
+        when(cardRepository.activate(card.getId(), null)).thenReturn(1);
+        when(cardRepository.findUserIdById(card.getId())).thenReturn(Optional.of(user.getId()));
+
+        cardService.activate(card.getId(), null);
+
+        verify(userCardsCache, times(1)).evict(user.getId());
+    }
+
+    @Test
+    void testDelete_EvictsOwnerCardListOnlyAfterCommit() {
+        when(cardRepository.findById(card.getId())).thenReturn(Optional.of(card));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cardService.delete(card.getId(), null);
+            verify(cardRepository, times(1)).delete(card);
+            verify(userCardsCache, never()).evict(any());
+            verify(missingKeyCache, never()).markMissing(any(), any());
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+            verify(userCardsCache, times(1)).evict(user.getId());
+            verify(missingKeyCache, times(1)).markMissing(MissingKeyCache.CARDS, card.getId());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testDeactivate_StaleVersion() {
+        when(cardRepository.deactivate(card.getId(), 3L)).thenReturn(0);
+        when(cardRepository.existsById(card.getId())).thenReturn(true);
+
+        assertThrows(VersionConflictException.class, () -> cardService.deactivate(card.getId(), 3L));
+        verify(userCardsCache, never()).evict(any());
+    }
+
+    @Test
+    void testDelete_StaleVersion() {
+        card.setVersion(5L);
+        when(cardRepository.findById(card.getId())).thenReturn(Optional.of(card));
+
+        assertThrows(VersionConflictException.class, () -> cardService.delete(card.getId(), 4L));
+        verify(cardRepository, never()).delete(any(PaymentCard.class));
     }
 
     @Test
     void testDelete() {
-        doNothing().when(cardRepository).deleteById(card.getId());
+        when(cardRepository.findById(card.getId())).thenReturn(Optional.of(card));
 
-        cardService.delete(card.getId());
+        cardService.delete(card.getId(), null);
 
-        verify(cardRepository, times(1)).deleteById(card.getId());
+        verify(cardRepository, times(1)).delete(card);
+        verify(userCardsCache, times(1)).evict(user.getId());
+        verify(missingKeyCache, times(1)).markMissing(MissingKeyCache.CARDS, card.getId());
     }
 
 }
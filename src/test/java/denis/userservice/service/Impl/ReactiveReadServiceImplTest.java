@@ -0,0 +1,105 @@
+package denis.userservice.service.Impl;
+
+import denis.userservice.cache.RedisCircuitBreaker;
+import denis.userservice.dto.response.PaymentCardResponseDto;
+import denis.userservice.dto.response.UserResponseDto;
+import denis.userservice.exception.UserNotFoundException;
+import denis.userservice.repository.ReactiveReadRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+public class ReactiveReadServiceImplTest {
+
+    @Mock
+    private ReactiveReadRepository readRepository;
+
+    @Mock
+    private ReactiveRedisTemplate<String, Object> reactiveCacheTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private ReactiveReadServiceImpl readService;
+    private UserResponseDto user;
+    private PaymentCardResponseDto card;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(reactiveCacheTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.set(anyString(), any(), any(Duration.class))).thenReturn(Mono.just(true));
+        readService = new ReactiveReadServiceImpl(readRepository, reactiveCacheTemplate,
+                RedisCacheWriter.TtlFunction.just(Duration.ofHours(1)),
+                new RedisCircuitBreaker(redisTemplate, new SimpleMeterRegistry(), 1));
+
+        UUID userId = UUID.randomUUID();
+        user = new UserResponseDto(userId, "John", "Doe", LocalDate.of(1990, 1, 1), "john@example.com", true, 0, null);
+        card = new PaymentCardResponseDto(UUID.randomUUID(), userId, "1111222233334444", "JOHN DOE",
+                LocalDate.now().plusYears(1), true, 0);
+    }
+
+    @Test
+    void testGetUserById_ServedFromRedis() {
+        when(valueOperations.get("users::" + user.id())).thenReturn(Mono.just(user));
+        when(valueOperations.get("userCards::" + user.id())).thenReturn(Mono.just(new ArrayList<>(List.of(card))));
+
+        assertEquals(user.withPaymentCards(List.of(card)), readService.getUserById(user.id()).block());
+
+        verifyNoInteractions(readRepository);
+    }
+
+    @Test
+    void testGetUserById_LoadsMissesAndStoresThemUnderSharedKeys() {
+        when(valueOperations.get(anyString())).thenReturn(Mono.empty());
+        when(readRepository.findUser(user.id())).thenReturn(Mono.just(user));
+        when(readRepository.findCardsByUserId(user.id())).thenReturn(Flux.just(card));
+
+        assertEquals(user.withPaymentCards(List.of(card)), readService.getUserById(user.id()).block());
+
+        verify(valueOperations).set("users::" + user.id(), user, Duration.ofHours(1));
+        verify(valueOperations).set("userCards::" + user.id(), List.of(card), Duration.ofHours(1));
+    }
+
+    @Test
+    void testGetUserById_NotFound() {
+        UUID id = UUID.randomUUID();
+        when(valueOperations.get(anyString())).thenReturn(Mono.empty());
+        when(readRepository.findUser(id)).thenReturn(Mono.empty());
+        when(readRepository.findCardsByUserId(id)).thenReturn(Flux.empty());
+
+        assertThrows(UserNotFoundException.class, () -> readService.getUserById(id).block());
+    }
+
+    @Test
+    void testGetCardsByUserId_FallsBackToDatabaseWhenRedisFails() {
+        when(valueOperations.get(anyString())).thenReturn(Mono.error(new RedisConnectionFailureException("down")));
+        when(readRepository.findCardsByUserId(user.id())).thenReturn(Flux.just(card));
+
+        assertEquals(List.of(card), readService.getCardsByUserId(user.id()).collectList().block());
+
+        verify(valueOperations, never()).set(anyString(), any(), any(Duration.class));
+    }
+}
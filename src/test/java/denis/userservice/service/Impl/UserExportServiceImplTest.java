@@ -0,0 +1,84 @@
+package denis.userservice.service.Impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import denis.userservice.dto.request.ExportFormat;
+import denis.userservice.dto.response.UserResponseDto;
+import denis.userservice.repository.UserCardExportRow;
+import denis.userservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+public class UserExportServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private ObjectMapper objectMapper;
+    private UserExportServiceImpl exportService;
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID otherUserId = UUID.randomUUID();
+    private final UUID firstCardId = UUID.randomUUID();
+    private final UUID secondCardId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        exportService = new UserExportServiceImpl(userRepository, objectMapper);
+
+        LocalDate birthDate = LocalDate.of(1990, 1, 1);
+        LocalDate expiration = LocalDate.of(2030, 12, 31);
+        when(userRepository.streamAllWithCards()).thenReturn(Stream.of(
+                new UserCardExportRow(userId, "John", "Doe", birthDate, "john@example.com", true, 2L,
+                        firstCardId, "1111222233334444", "JOHN DOE", expiration, true, 1L),
+                new UserCardExportRow(userId, "John", "Doe", birthDate, "john@example.com", true, 2L,
+                        secondCardId, "5555666677778888", "JOHN DOE", expiration, false, 4L),
+                new UserCardExportRow(otherUserId, "Jane", "Smith, Jr.", birthDate, "jane@example.com", true, 0L,
+                        null, null, null, null, null, null)));
+    }
+
+    @Test
+    void testExportNdjson_GroupsCardsPerUser() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        exportService.export(ExportFormat.NDJSON, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        UserResponseDto first = objectMapper.readValue(lines[0], UserResponseDto.class);
+        UserResponseDto second = objectMapper.readValue(lines[1], UserResponseDto.class);
+        assertEquals(userId, first.id());
+        assertEquals(2, first.paymentCards().size());
+        assertEquals(2, first.version());
+        assertEquals(4, first.paymentCards().get(1).version());
+        assertEquals(otherUserId, second.id());
+        assertEquals(0, second.paymentCards().size());
+    }
+
+    @Test
+    void testExportCsv_WritesOneRowPerCardAndEscapesValues() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        exportService.export(ExportFormat.CSV, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        assertEquals(userId + ",John,Doe,1990-01-01,john@example.com,true," + secondCardId
+                + ",5555666677778888,JOHN DOE,2030-12-31,false", lines[2]);
+        assertEquals(otherUserId + ",Jane,\"Smith, Jr.\",1990-01-01,jane@example.com,true,,,,,", lines[3]);
+    }
+}
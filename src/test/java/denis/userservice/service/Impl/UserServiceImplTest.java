@@ -1,27 +1,48 @@
 package denis.userservice.service.Impl;
 
+import denis.userservice.cache.BatchCacheOperations;
+import denis.userservice.cache.MissingKeyCache;
 import denis.userservice.dto.request.UserRequestDto;
+import denis.userservice.dto.response.CursorPageDto;
+import denis.userservice.dto.response.PaymentCardResponseDto;
+import denis.userservice.dto.response.UserBatchResponseDto;
 import denis.userservice.dto.response.UserResponseDto;
+import denis.userservice.entity.PaymentCard;
 import denis.userservice.entity.User;
+import denis.userservice.exception.InvalidCursorException;
 import denis.userservice.exception.UserNotFoundException;
+import denis.userservice.exception.VersionConflictException;
 import denis.userservice.mapper.UserMapper;
+import denis.userservice.pagination.KeysetCursor;
 import denis.userservice.repository.UserRepository;
+import denis.userservice.repository.VersionedUpdateRepository;
+import denis.userservice.service.PaymentCardService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -36,6 +57,25 @@ public class UserServiceImplTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private BatchCacheOperations batchCacheOperations;
+
+    @Mock
+    private PaymentCardService cardService;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private MissingKeyCache missingKeyCache;
+
+    @Mock
+    private VersionedUpdateRepository versionedUpdateRepository;
+
+    private Cache usersCache;
+
+    private Cache userCardsCache;
+
     private User user;
     private UserRequestDto requestDto;
     private UserResponseDto responseDto;
@@ -43,6 +83,10 @@ public class UserServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        usersCache = new ConcurrentMapCache("users");
+        when(cacheManager.getCache("users")).thenReturn(usersCache);
+        userCardsCache = new ConcurrentMapCache("userCards");
+        when(cacheManager.getCache("userCards")).thenReturn(userCardsCache);
 
         user = new User();
         user.setId(UUID.randomUUID());
@@ -52,29 +96,47 @@ public class UserServiceImplTest {
         user.setEmail("john@example.com");
 
         requestDto = new UserRequestDto("John", "Doe", LocalDate.of(1990,1,1), "john@example.com");
-        responseDto = new UserResponseDto(user.getId(), "John", "Doe", LocalDate.of(1990,1,1), "john@example.com", true, null);
+        responseDto = new UserResponseDto(user.getId(), "John", "Doe", LocalDate.of(1990,1,1), "john@example.com", true, 0, null);
     }
 
     @Test
     void testCreate() {
         when(userMapper.toEntity(requestDto)).thenReturn(user);
         when(userRepository.save(user)).thenReturn(user);
-        when(userMapper.toResponseDto(user)).thenReturn(responseDto);
+        when(userMapper.toCoreDto(user)).thenReturn(responseDto);
 
         UserResponseDto result = userService.create(requestDto);
 
-        assertEquals(responseDto, result);
+        assertEquals(responseDto.withPaymentCards(List.of()), result);
+        assertEquals(responseDto, usersCache.get(user.getId()).get());
         verify(userRepository, times(1)).save(user);
+        verify(missingKeyCache, times(1)).clear(MissingKeyCache.USERS, user.getId());
     }
 
     @Test
     void testGetById_UserExists() {
         when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(userMapper.toResponseDto(user)).thenReturn(responseDto);
+        when(userMapper.toCoreDto(user)).thenReturn(responseDto);
+        when(cardService.getByUserId(user.getId())).thenReturn(List.of());
 
         UserResponseDto result = userService.getById(user.getId());
 
-        assertEquals(responseDto, result);
+        assertEquals(responseDto.withPaymentCards(List.of()), result);
+    }
+
+    @Test
+    void testGetById_AssemblesCachedCoreWithCurrentCards() {
+        PaymentCardResponseDto card = new PaymentCardResponseDto(UUID.randomUUID(), user.getId(),
+                "1111222233334444", "JOHN DOE", LocalDate.of(2030, 1, 1), true, 0);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userMapper.toCoreDto(user)).thenReturn(responseDto);
+        when(cardService.getByUserId(user.getId())).thenReturn(List.of()).thenReturn(List.of(card));
+
+        userService.getById(user.getId());
+        UserResponseDto result = userService.getById(user.getId());
+
+        assertEquals(List.of(card), result.paymentCards());
+        verify(userRepository, times(1)).findById(user.getId());
     }
 
     @Test
@@ -83,6 +145,37 @@ public class UserServiceImplTest {
         when(userRepository.findById(id)).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class, () -> userService.getById(id));
+        verify(missingKeyCache, times(1)).markMissing(MissingKeyCache.USERS, id);
+    }
+
+    @Test
+    void testGetById_KnownMissingSkipsDatabase() {
+        UUID id = UUID.randomUUID();
+        when(missingKeyCache.isMissing(MissingKeyCache.USERS, id)).thenReturn(true);
+
+        assertThrows(UserNotFoundException.class, () -> userService.getById(id));
+        verify(userRepository, never()).findById(id);
+    }
+
+    @Test
+    void testGetAllByIds_LoadsOnlyCacheMisses() {
+        UUID cachedId = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+        UserResponseDto cached = new UserResponseDto(cachedId, "Jane", "Smith", null, null, true, 0, null);
+        List<UUID> ids = List.of(user.getId(), missingId, cachedId);
+
+        when(batchCacheOperations.getAll("users", ids, UserResponseDto.class)).thenReturn(Map.of(cachedId, cached));
+        when(userRepository.findAllById(List.of(user.getId(), missingId))).thenReturn(List.of(user));
+        when(userMapper.toCoreDto(user)).thenReturn(responseDto);
+        when(cardService.getByUserIds(Set.of(user.getId(), cachedId)))
+                .thenReturn(Map.of(user.getId(), List.of(), cachedId, List.of()));
+
+        UserBatchResponseDto result = userService.getAllByIds(ids);
+
+        assertEquals(List.of(responseDto.withPaymentCards(List.of()), cached.withPaymentCards(List.of())),
+                result.users());
+        assertEquals(List.of(missingId), result.missingIds());
+        verify(batchCacheOperations, times(1)).putAllIfAbsent("users", Map.of(user.getId(), responseDto));
     }
 
     @Test
@@ -101,8 +194,8 @@ public class UserServiceImplTest {
         Page<User> page = new PageImpl<>(usersList, pageable, usersList.size());
 
         when(userRepository.findAll(any(Specification.class), eq(pageable))).thenReturn(page);
-        when(userMapper.toResponseDto(user1)).thenReturn(new UserResponseDto(user1.getId(), "John", "Doe", null, null, true, null));
-        when(userMapper.toResponseDto(user2)).thenReturn(new UserResponseDto(user2.getId(), "Jane", "Smith", null, null, true, null));
+        when(userMapper.toResponseDto(user1)).thenReturn(new UserResponseDto(user1.getId(), "John", "Doe", null, null, true, 0, null));
+        when(userMapper.toResponseDto(user2)).thenReturn(new UserResponseDto(user2.getId(), "Jane", "Smith", null, null, true, 0, null));
 
         Page<UserResponseDto> result = userService.getAll(null, null, pageable);
         assertEquals(2, result.getContent().size());
@@ -111,40 +204,218 @@ public class UserServiceImplTest {
     }
 
 
+    @Test
+    void testGetAllWithApproximateTotal_LastSliceNeedsNoCount() {
+        User user1 = new User();
+        user1.setId(UUID.randomUUID());
+        Pageable pageable = PageRequest.of(2, 10);
+
+        when(userRepository.findBy(any(Specification.class), any()))
+                .thenReturn(new SliceImpl<>(List.of(user1), pageable, false));
+        when(userMapper.toResponseDto(user1)).thenReturn(responseDto);
+
+        Page<UserResponseDto> result = userService.getAllWithApproximateTotal(null, null, pageable);
+
+        assertEquals(21L, result.getTotalElements());
+        verify(userRepository, never()).estimateCount();
+        verify(userRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void testGetAllWithApproximateTotal_UsesEstimateWithoutFilters() {
+        User user1 = new User();
+        user1.setId(UUID.randomUUID());
+        Pageable pageable = PageRequest.of(0, 1);
+
+        when(userRepository.findBy(any(Specification.class), any()))
+                .thenReturn(new SliceImpl<>(List.of(user1), pageable, true));
+        when(userMapper.toResponseDto(user1)).thenReturn(responseDto);
+        when(userRepository.estimateCount()).thenReturn(5000L);
+
+        Page<UserResponseDto> result = userService.getAllWithApproximateTotal(null, null, pageable);
+
+        assertEquals(5000L, result.getTotalElements());
+        verify(userRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void testGetAllByCursor_ReturnsNextCursorWhenMoreRowsExist() {
+        User user1 = new User();
+        user1.setId(UUID.randomUUID());
+        user1.setCreatedAt(LocalDateTime.of(2024, 1, 1, 10, 0));
+        User user2 = new User();
+        user2.setId(UUID.randomUUID());
+        user2.setCreatedAt(LocalDateTime.of(2024, 1, 1, 11, 0));
+
+        when(userRepository.findBy(any(Specification.class), any())).thenReturn(List.of(user1, user2));
+        when(userMapper.toResponseDto(user1)).thenReturn(responseDto);
+
+        CursorPageDto<UserResponseDto> result = userService.getAllByCursor(null, null, null, 1);
+
+        assertEquals(List.of(responseDto), result.content());
+        assertEquals(true, result.hasNext());
+        assertEquals(new KeysetCursor(user1.getCreatedAt(), user1.getId()), KeysetCursor.decode(result.nextCursor()));
+    }
+
+    @Test
+    void testGetAllByCursor_LastPageHasNoCursor() {
+        when(userRepository.findBy(any(Specification.class), any())).thenReturn(List.of(user));
+        when(userMapper.toResponseDto(user)).thenReturn(responseDto);
+        String cursor = new KeysetCursor(LocalDateTime.of(2024, 1, 1, 10, 0), UUID.randomUUID()).encode();
+
+        CursorPageDto<UserResponseDto> result = userService.getAllByCursor(null, null, cursor, 20);
+
+        assertEquals(1, result.content().size());
+        assertEquals(false, result.hasNext());
+        assertEquals(null, result.nextCursor());
+    }
+
+    @Test
+    void testGetAllByCursor_InvalidCursor() {
+        assertThrows(InvalidCursorException.class, () -> userService.getAllByCursor(null, null, "not-a-cursor", 20));
+    }
+
     @Test
     void testUpdate_UserExist() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(userRepository.save(any(User.class))).thenReturn(user);
-        when(userMapper.toResponseDto(any(User.class))).thenReturn(responseDto);
-        UserResponseDto result = userService.update(user.getId(), requestDto);
-        assertEquals(responseDto, result);
+        when(versionedUpdateRepository.updateUser(user.getId(), requestDto, 3L)).thenReturn(Optional.of(responseDto));
+        when(cardService.getByUserId(user.getId())).thenReturn(List.of());
+        UserResponseDto result = userService.update(user.getId(), requestDto, 3L);
+        assertEquals(responseDto.withPaymentCards(List.of()), result);
+        assertEquals(responseDto, usersCache.get(user.getId()).get());
+        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void testUpdate_CachesUpdatedUserOnlyAfterCommit() {
+        when(versionedUpdateRepository.updateUser(user.getId(), requestDto, null)).thenReturn(Optional.of(responseDto));
+        when(cardService.getByUserId(user.getId())).thenReturn(List.of());
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.update(user.getId(), requestDto, null);
+            assertNull(usersCache.get(user.getId()));
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+            assertEquals(responseDto, usersCache.get(user.getId()).get());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
     void testUpdate_UserNotFound() {
         UUID id = UUID.randomUUID();
-        when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
+        when(versionedUpdateRepository.updateUser(id, requestDto, null)).thenReturn(Optional.empty());
+        when(userRepository.existsById(id)).thenReturn(false);
 
-        assertThrows(UserNotFoundException.class, () -> userService.getById(id));
+        assertThrows(UserNotFoundException.class, () -> userService.update(id, requestDto, null));
+    }
+
+    @Test
+    void testUpdate_StaleVersion() {
+        when(versionedUpdateRepository.updateUser(user.getId(), requestDto, 1L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(user.getId())).thenReturn(true);
+
+        assertThrows(VersionConflictException.class, () -> userService.update(user.getId(), requestDto, 1L));
+        assertEquals(null, usersCache.get(user.getId()));
     }
 
 
     @Test
     void testActivateAndDeactivate() {
-        doNothing().when(userRepository).activate(user.getId());
-        doNothing().when(userRepository).deactivate(user.getId());
+        when(userRepository.activate(user.getId(), null)).thenReturn(1);
+        when(userRepository.deactivate(user.getId(), null)).thenReturn(1);
 
-        userService.activate(user.getId());
-        userService.deactivate(user.getId());
+        userService.activate(user.getId(), null);
+        userService.deactivate(user.getId(), null);
 
-        verify(userRepository, times(1)).activate(user.getId());
-        verify(userRepository, times(1)).deactivate(user.getId());
+        verify(userRepository, times(1)).activate(user.getId(), null);
+        verify(userRepository, times(1)).deactivate(user.getId(), null);
+        verify(userRepository, never()).existsById(any());
+    }
+
+    @Test
+    void testDeactivate_EvictsCachedUserOnlyAfterCommit() {
+        usersCache.put(user.getId(), responseDto);
+        when(userRepository.deactivate(user.getId(), null)).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.deactivate(user.getId(), null);
+            assertEquals(responseDto, usersCache.get(user.getId()).get());
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+            assertNull(usersCache.get(user.getId()));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testActivate_StaleVersion() {
+        when(userRepository.activate(user.getId(), 4L)).thenReturn(0);
+        when(userRepository.existsById(user.getId())).thenReturn(true);
+
+        assertThrows(VersionConflictException.class, () -> userService.activate(user.getId(), 4L));
     }
 
     @Test
     void testDelete() {
-        doNothing().when(userRepository).deleteById(user.getId());
-        userService.delete(user.getId());
-        verify(userRepository, times(1)).deleteById(user.getId());
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        userService.delete(user.getId(), null);
+        verify(userRepository, times(1)).delete(user);
+        verify(missingKeyCache, times(1)).markMissing(MissingKeyCache.USERS, user.getId());
+    }
+
+    @Test
+    void testDelete_EvictsCascadedCardsAndMarksMissingOnlyAfterCommit() {
+        PaymentCard card = new PaymentCard();
+        card.setId(UUID.randomUUID());
+        user.setPaymentCards(List.of(card));
+        usersCache.put(user.getId(), responseDto);
+        userCardsCache.put(user.getId(), List.of());
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.delete(user.getId(), null);
+            assertEquals(responseDto, usersCache.get(user.getId()).get());
+            verify(missingKeyCache, never()).markMissing(any(), any());
+            verify(batchCacheOperations, never()).evictAll(any(), any());
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+            assertNull(usersCache.get(user.getId()));
+            assertNull(userCardsCache.get(user.getId()));
+            verify(batchCacheOperations, times(1)).evictAll("cards", List.of(card.getId()));
+            verify(missingKeyCache, times(1)).markMissing(MissingKeyCache.USERS, user.getId());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testDelete_StaleVersion() {
+        user.setVersion(2L);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        assertThrows(VersionConflictException.class, () -> userService.delete(user.getId(), 1L));
+        verify(userRepository, never()).delete(any(User.class));
+        verify(missingKeyCache, never()).markMissing(any(), any());
+    }
+
+    @Test
+    void testDelete_MissingUserWithIfMatchFailsPrecondition() {
+        when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
+
+        assertThrows(VersionConflictException.class, () -> userService.delete(user.getId(), 0L));
+        userService.delete(user.getId(), null);
+    }
+
+    @Test
+    void testActivate_MissingUserWithIfMatchFailsPrecondition() {
+        when(userRepository.activate(user.getId(), 0L)).thenReturn(0);
+        when(userRepository.existsById(user.getId())).thenReturn(false);
+
+        VersionConflictException ex = assertThrows(VersionConflictException.class,
+                () -> userService.activate(user.getId(), 0L));
+        assertEquals("User does not exist", ex.getMessage());
     }
 }
@@ -0,0 +1,18 @@
+package denis.userservice.specification;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UserSpecificationsTest {
+
+    @Test
+    void testContainsPattern_LowercasesAndWrapsValue() {
+        assertEquals("%john%", UserSpecifications.containsPattern("John"));
+    }
+
+    @Test
+    void testContainsPattern_EscapesLikeWildcards() {
+        assertEquals("%50\\%\\_off\\\\%", UserSpecifications.containsPattern("50%_off\\"));
+    }
+}
@@ -0,0 +1,47 @@
+-- Substring search latency on users.name / users.surname with and without the pg_trgm indexes.
+--
+-- Run against a scratch database migrated by Liquibase, once per dataset size:
+--   psql -v rows=1000000  -f user-search-trigram.sql user_service_bench
+--   psql -v rows=10000000 -f user-search-trigram.sql user_service_bench
+--
+-- The queries mirror what GET /api/users?name=...&surname=... sends through UserSpecifications:
+-- a page of 20 plus the count query.
+
+\timing on
+\set ON_ERROR_STOP on
+
+TRUNCATE payment_cards, users;
+
+INSERT INTO users (name, surname, birth_date, email, active, created_at, updated_at)
+SELECT 'Name' || substr(md5(g::text), 1, 10),
+       'Surname' || substr(md5((g * 31)::text), 1, 12),
+       DATE '1960-01-01' + (g % 15000),
+       'user' || g || '@bench.local',
+       TRUE,
+       now() - make_interval(secs => g),
+       now()
+FROM generate_series(1, :rows) AS g;
+
+VACUUM ANALYZE users;
+
+\echo '=== trigram index: selective name substring ==='
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM users WHERE lower(name) LIKE '%3fa9c%' ESCAPE '\' OFFSET 0 LIMIT 20;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM users WHERE lower(name) LIKE '%3fa9c%' ESCAPE '\';
+
+\echo '=== trigram index: name and surname ==='
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM users
+WHERE lower(name) LIKE '%3fa9%' ESCAPE '\' AND lower(surname) LIKE '%e1%' ESCAPE '\'
+OFFSET 0 LIMIT 20;
+
+\echo '=== baseline: same queries with index scans disabled (sequential scan) ==='
+SET enable_bitmapscan = off;
+SET enable_indexscan = off;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM users WHERE lower(name) LIKE '%3fa9c%' ESCAPE '\' OFFSET 0 LIMIT 20;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM users WHERE lower(name) LIKE '%3fa9c%' ESCAPE '\';
+RESET enable_bitmapscan;
+RESET enable_indexscan;